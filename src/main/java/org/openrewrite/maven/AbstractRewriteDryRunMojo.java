@@ -26,6 +26,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 /**
@@ -54,8 +56,46 @@ public class AbstractRewriteDryRunMojo extends AbstractRewriteMojo {
             return;
         }
 
-        ResultsContainer results = listResults();
+        Path patchFile = patchFile();
+        AtomicBoolean changesFound = new AtomicBoolean();
+        listResults(results -> {
+            if (reportResults(results, patchFile, !changesFound.get())) {
+                changesFound.set(true);
+            }
+        });
+
+        if (changesFound.get()) {
+            getLog().warn("Patch file available:");
+            getLog().warn("    " + patchFile.normalize());
+            getLog().warn("Run 'mvn rewrite:run' to apply the recipes.");
+
+            if (failOnDryRunResults) {
+                throw new MojoExecutionException("Applying recipes would make changes. See logs for more details.");
+            }
+        } else {
+            getLog().info("Applying recipes would make no changes. No patch file generated.");
+        }
+    }
+
+    private Path patchFile() {
+        Path outPath;
+        if (reportOutputDirectory != null) {
+            outPath = Paths.get(reportOutputDirectory);
+        } else if (runPerSubmodule) {
+            outPath = Paths.get(project.getBuild().getDirectory()).resolve("rewrite");
+        } else {
+            outPath = Paths.get(mavenSession.getTopLevelProject().getBuild().getDirectory()).resolve("rewrite");
+        }
+        return outPath.resolve("rewrite.patch");
+    }
 
+    /**
+     * Log the changes the recipes would make and write their diff to the patch file. When streaming, this is called
+     * for each batch of projects, and the diffs of later batches are appended to the patch file.
+     *
+     * @return whether the recipes would make any changes.
+     */
+    private boolean reportResults(ResultsContainer results, Path patchFile, boolean newPatchFile) throws MojoExecutionException {
         Throwable firstException = results.getFirstException();
         if (firstException != null) {
             getLog().error("The recipe produced an error. Please report this to the recipe author.");
@@ -97,22 +137,17 @@ public class AbstractRewriteDryRunMojo extends AbstractRewriteMojo {
                 logRecipesThatMadeChanges(result);
             }
 
-            Path outPath;
-            if (reportOutputDirectory != null) {
-                outPath = Paths.get(reportOutputDirectory);
-            } else if (runPerSubmodule) {
-                outPath = Paths.get(project.getBuild().getDirectory()).resolve("rewrite");
-            } else {
-                outPath = Paths.get(mavenSession.getTopLevelProject().getBuild().getDirectory()).resolve("rewrite");
-            }
+            Path outPath = patchFile.getParent();
             try {
                 Files.createDirectories(outPath);
             } catch (IOException e) {
                 throw new RuntimeException("Could not create the folder [ " + outPath + "].", e);
             }
 
-            Path patchFile = outPath.resolve("rewrite.patch");
-            try (BufferedWriter writer = Files.newBufferedWriter(patchFile)) {
+            StandardOpenOption[] openOptions = newPatchFile ?
+                    new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE} :
+                    new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.APPEND};
+            try (BufferedWriter writer = Files.newBufferedWriter(patchFile, openOptions)) {
                 Stream.concat(
                         Stream.concat(results.generated.stream(), results.deleted.stream()),
                         Stream.concat(results.moved.stream(), results.refactoredInPlace.stream())
@@ -129,15 +164,8 @@ public class AbstractRewriteDryRunMojo extends AbstractRewriteMojo {
             } catch (Exception e) {
                 throw new MojoExecutionException("Unable to generate rewrite result.", e);
             }
-            getLog().warn("Patch file available:");
-            getLog().warn("    " + patchFile.normalize());
-            getLog().warn("Run 'mvn rewrite:run' to apply the recipes.");
-
-            if (failOnDryRunResults) {
-                throw new MojoExecutionException("Applying recipes would make changes. See logs for more details.");
-            }
-        } else {
-            getLog().info("Applying recipes would make no changes. No patch file generated.");
+            return true;
         }
+        return false;
     }
 }
@@ -4,6 +4,7 @@ import com.puppycrawl.tools.checkstyle.Checker;
 import io.micrometer.core.instrument.Metrics;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -19,6 +20,7 @@ import org.openrewrite.*;
 import org.openrewrite.config.ClasspathScanningLoader;
 import org.openrewrite.config.Environment;
 import org.openrewrite.config.RecipeDescriptor;
+import org.openrewrite.config.ResourceLoader;
 import org.openrewrite.config.YamlResourceLoader;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.ipc.http.HttpSender;
@@ -32,10 +34,16 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import static java.util.Collections.*;
 import static java.util.stream.Collectors.joining;
@@ -59,10 +67,19 @@ public abstract class AbstractRewriteMojo extends ConfigurableRewriteMojo {
     @Component
     protected RepositorySystem repositorySystem;
 
+    @SuppressWarnings("NotNullFieldNotInitialized")
+    @Component
+    protected org.eclipse.aether.RepositorySystem resolverRepositorySystem;
+
     @SuppressWarnings("NotNullFieldNotInitialized")
     @Parameter(defaultValue = "${session}", readonly = true)
     protected MavenSession mavenSession;
 
+    /**
+     * The version directory and file name of a jar in a maven repository.
+     */
+    private static final Pattern JAR_VERSION = Pattern.compile("/[^/]+/[^/]+\\.jar");
+
     private static final String RECIPE_NOT_FOUND_EXCEPTION_MSG = "Could not find recipe '%s' among available recipes";
 
     protected Environment environment() throws MojoExecutionException {
@@ -101,12 +118,27 @@ public abstract class AbstractRewriteMojo extends ConfigurableRewriteMojo {
     }
 
     protected Environment environment(@Nullable ClassLoader recipeClassLoader) throws MojoExecutionException {
+        return environment(recipeClassLoader, recipeLoader(recipeClassLoader));
+    }
+
+    /**
+     * @return The loader of the recipes and styles on the classpath of {@code recipeClassLoader}, or on that of the
+     * plugin when it is {@code null}.
+     */
+    private ResourceLoader recipeLoader(@Nullable ClassLoader recipeClassLoader) {
+        if (recipeClassLoader == null) {
+            return recipeCatalog(AbstractRewriteMojo.class.getClassLoader(), null,
+                    () -> new ClasspathScanningLoader(project.getProperties(), new String[0]));
+        }
+        return recipeCatalog(recipeClassLoader, recipeClassLoader,
+                () -> new ClasspathScanningLoader(project.getProperties(), recipeClassLoader));
+    }
+
+    private Environment environment(@Nullable ClassLoader recipeClassLoader, ResourceLoader recipeLoader) throws MojoExecutionException {
         Environment.Builder env = Environment.builder(project.getProperties());
+        env.load(recipeLoader);
         if (recipeClassLoader == null) {
-            env.scanRuntimeClasspath()
-                    .scanUserHome();
-        } else {
-            env.load(new ClasspathScanningLoader(project.getProperties(), recipeClassLoader));
+            env.scanUserHome();
         }
 
         try {
@@ -123,6 +155,18 @@ public abstract class AbstractRewriteMojo extends ConfigurableRewriteMojo {
         return env.build();
     }
 
+    private ResourceLoader recipeCatalog(ClassLoader classLoader, @Nullable ClassLoader definitionClassLoader,
+                                         Supplier<ResourceLoader> scan) {
+        if (!recipeCatalogEnabled) {
+            return scan.get();
+        }
+        Path cacheDirectory = recipeCatalogDirectory == null ?
+                Paths.get(System.getProperty("user.home"), ".rewrite-cache", "recipe-catalog") :
+                Paths.get(recipeCatalogDirectory);
+        return new RecipeCatalog(cacheDirectory, getLog())
+                .load(classLoader, definitionClassLoader, project.getProperties(), scan);
+    }
+
     protected ExecutionContext executionContext() {
         return new InMemoryExecutionContext(t -> {
             getLog().warn(t.getMessage());
@@ -163,7 +207,29 @@ public abstract class AbstractRewriteMojo extends ConfigurableRewriteMojo {
         }
     }
 
+    /**
+     * Receives the results of running the active recipes. When streaming, it is called once for each batch of modules,
+     * otherwise it is called once with the results of all source files.
+     */
+    @FunctionalInterface
+    protected interface ResultsConsumer {
+        void accept(ResultsContainer results) throws MojoExecutionException;
+    }
+
     protected ResultsContainer listResults() throws MojoExecutionException {
+        List<ResultsContainer> batches = new ArrayList<>(1);
+        listResults(batches::add);
+        ResultsContainer results = new ResultsContainer(batches.get(0).getProjectRoot(), emptyList());
+        for (ResultsContainer batch : batches) {
+            results.generated.addAll(batch.generated);
+            results.deleted.addAll(batch.deleted);
+            results.moved.addAll(batch.moved);
+            results.refactoredInPlace.addAll(batch.refactoredInPlace);
+        }
+        return results;
+    }
+
+    protected void listResults(ResultsConsumer resultsConsumer) throws MojoExecutionException {
         try (MeterRegistryProvider meterRegistryProvider = new MeterRegistryProvider(getLog(),
                 metricsUri, metricsUsername, metricsPassword)) {
             Metrics.addRegistry(meterRegistryProvider.registry());
@@ -172,60 +238,24 @@ public abstract class AbstractRewriteMojo extends ConfigurableRewriteMojo {
             getLog().info(String.format("Using active recipe(s) %s", getActiveRecipes()));
             getLog().info(String.format("Using active styles(s) %s", getActiveStyles()));
             if (getActiveRecipes().isEmpty()) {
-                return new ResultsContainer(baseDir, emptyList());
-            }
-
-            URLClassLoader recipeArtifactCoordinatesClassloader = getRecipeArtifactCoordinatesClassloader();
-            if (recipeArtifactCoordinatesClassloader != null) {
-                merge(getClass().getClassLoader(), recipeArtifactCoordinatesClassloader);
-            }
-            Environment env = environment(recipeArtifactCoordinatesClassloader);
-
-            List<NamedStyles> styles;
-            styles = env.activateStyles(getActiveStyles());
-            try {
-                Plugin checkstylePlugin = project.getPlugin("org.apache.maven.plugins:maven-checkstyle-plugin");
-                if (checkstyleConfigFile != null && !checkstyleConfigFile.isEmpty()) {
-                    styles.add(CheckstyleConfigLoader.loadCheckstyleConfig(Paths.get(checkstyleConfigFile), emptyMap()));
-                } else if (checkstyleDetectionEnabled && checkstylePlugin != null) {
-                    Object checkstyleConfRaw = checkstylePlugin.getConfiguration();
-                    if (checkstyleConfRaw instanceof Xpp3Dom) {
-                        Xpp3Dom xmlCheckstyleConf = (Xpp3Dom) checkstyleConfRaw;
-                        Xpp3Dom xmlConfigLocation = xmlCheckstyleConf.getChild("configLocation");
-
-                        if (xmlConfigLocation == null) {
-                            // When no config location is specified, the maven-checkstyle-plugin falls back on sun_checks.xml
-                            try (InputStream is = Checker.class.getResourceAsStream("/sun_checks.xml")) {
-                                if (is != null) {
-                                    styles.add(CheckstyleConfigLoader.loadCheckstyleConfig(is, emptyMap()));
-                                }
-                            }
-                        } else {
-                            Path configPath = Paths.get(xmlConfigLocation.getValue());
-                            if (configPath.toFile().exists()) {
-                                styles.add(CheckstyleConfigLoader.loadCheckstyleConfig(configPath, emptyMap()));
-                            }
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                getLog().warn("Unable to parse checkstyle configuration. Checkstyle will not inform rewrite execution.", e);
+                resultsConsumer.accept(new ResultsContainer(baseDir, emptyList()));
+                return;
             }
 
-            Recipe recipe = env.activateRecipes(getActiveRecipes());
+            LoadedRecipes loadedRecipes = loadedRecipes();
+            Recipe recipe = loadedRecipes.activateRecipes(getActiveRecipes());
+            List<NamedStyles> styles = loadedRecipes.styles;
             if (recipe.getRecipeList().isEmpty()) {
                 getLog().warn("No recipes were activated. " +
                               "Activate a recipe with <activeRecipes><recipe>com.fully.qualified.RecipeClassName</recipe></activeRecipes> in this plugin's <configuration> in your pom.xml, " +
                               "or on the command line with -Drewrite.activeRecipes=com.fully.qualified.RecipeClassName");
-                return new ResultsContainer(baseDir, emptyList());
+                resultsConsumer.accept(new ResultsContainer(baseDir, emptyList()));
+                return;
             }
 
-            getLog().info("Validating active recipes...");
-            Collection<Validated> validated = recipe.validateAll();
-            List<Validated.Invalid> failedValidations = validated.stream().map(Validated::failures)
-                    .flatMap(Collection::stream).collect(toList());
-            if (!failedValidations.isEmpty()) {
-                failedValidations.forEach(failedValidation -> getLog().error(
+            if (!loadedRecipes.failedValidations.isEmpty()) {
+                // logged by every execution, whether or not it validated the recipes itself
+                loadedRecipes.failedValidations.forEach(failedValidation -> getLog().error(
                         "Recipe validation error in " + failedValidation.getProperty() + ": " +
                         failedValidation.getMessage(), failedValidation.getException()));
                 if (failOnInvalidActiveRecipes) {
@@ -236,66 +266,286 @@ public abstract class AbstractRewriteMojo extends ConfigurableRewriteMojo {
             }
             ExecutionContext ctx = executionContext();
 
+            ParsePlan parsePlan;
+            try {
+                parsePlan = ParsePlan.forRecipe(recipe, typeAttribution, sourceKinds).withPrefilter(getPrefilterTokens());
+            } catch (IllegalArgumentException e) {
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+            if (!parsePlan.getSourceKinds().equals(ParsePlan.FULL.getSourceKinds())) {
+                getLog().info(String.format("Parsing only source files of kind(s) %s", parsePlan.getSourceKinds()));
+            }
+            if (parsePlan.isPrefiltered()) {
+                getLog().info("Parsing only java sources and resources containing one of the prefilter tokens");
+            }
+            if (parsePlan.parses(ParsePlan.SourceKind.JAVA) && !parsePlan.isTypeAttribution()) {
+                getLog().info("Parsing Java sources without type attribution");
+            }
+
             //Parse and collect source files from each project in the maven session.
-            MavenMojoProjectParser projectParser = new MavenMojoProjectParser(getLog(), baseDir, pomCacheEnabled, pomCacheDirectory, runtime, skipMavenParsing, getExclusions(), getPlainTextMasks(), sizeThresholdMb, mavenSession, settingsDecrypter);
+            MavenMojoProjectParser projectParser = new MavenMojoProjectParser(getLog(), baseDir, pomCacheEnabled, getPomCacheSettings(), pomPrefetchThreads, dependenciesFromMaven, runtime, skipMavenParsing, getExclusions(), getPlainTextMasks(), sizeThresholdMb, mavenSession, settingsDecrypter, sourceFileCache(), parsePlan);
 
-            List<SourceFile> sourceFiles = new ArrayList<>();
             if (runPerSubmodule) {
                 //If running per submodule, parse the source files for only the current project.
                 projectParser.resetTypeCache();
-                sourceFiles.addAll(projectParser.listSourceFiles(project, styles, ctx));
+                resultsConsumer.accept(runRecipe(recipe, baseDir, projectParser.listSourceFiles(project, styles, ctx), ctx));
+            } else if (streamingBatchSize > 0) {
+                //If streaming, parse, run and hand over the results of one batch of projects before parsing the next.
+                List<MavenProject> projects = mavenSession.getProjects();
+                for (int i = 0; i < projects.size(); i += streamingBatchSize) {
+                    List<MavenProject> batch = projects.subList(i, Math.min(i + streamingBatchSize, projects.size()));
+                    getLog().info(String.format("Processing projects %d to %d of %d", i + 1, i + batch.size(), projects.size()));
+                    resultsConsumer.accept(runRecipe(recipe, baseDir, projectParser.listSourceFiles(batch, styles, ctx, parseThreads), ctx));
+                    // Nothing refers to the types of the previous batch anymore.
+                    projectParser.resetTypeCache();
+                }
             } else {
                 //If running across all project, iterate and parse source files from each project
-                for (MavenProject projectIndex : mavenSession.getProjects()) {
-                    sourceFiles.addAll(projectParser.listSourceFiles(projectIndex, styles, ctx));
-                }
+                resultsConsumer.accept(runRecipe(recipe, baseDir, projectParser.listSourceFiles(mavenSession.getProjects(), styles, ctx, parseThreads), ctx));
             }
 
-            getLog().info("Running recipe(s)...");
-            List<Result> results = recipe.run(sourceFiles, ctx).getResults().stream()
-                    .filter(source -> {
-                        // Remove ASTs originating from generated files
-                        if (source.getBefore() != null) {
-                            return !source.getBefore().getMarkers().findFirst(Generated.class).isPresent();
-                        }
-                        return true;
-                    })
-                    .collect(toList());
-
             Metrics.removeRegistry(meterRegistryProvider.registry());
-
-            return new ResultsContainer(baseDir, results);
         } catch (DependencyResolutionRequiredException e) {
             throw new MojoExecutionException("Dependency resolution required", e);
         }
     }
 
+    /**
+     * The environment and styles of the configuration of this execution, with the failures of validating the recipes
+     * it activates.
+     */
+    private static final class LoadedRecipes {
+        private final Environment environment;
+        private final List<NamedStyles> styles;
+        private final List<Validated.Invalid> failedValidations;
+
+        /**
+         * Whether activating recipes from {@link #environment} creates new instances of them, see
+         * {@link RecipeCatalog#createsRecipeInstances(ResourceLoader)}.
+         */
+        private final boolean createsRecipeInstances;
+
+        private LoadedRecipes(Environment environment, List<NamedStyles> styles,
+                              List<Validated.Invalid> failedValidations, boolean createsRecipeInstances) {
+            this.environment = environment;
+            this.styles = unmodifiableList(styles);
+            this.failedValidations = failedValidations;
+            this.createsRecipeInstances = createsRecipeInstances;
+        }
+
+        Recipe activateRecipes(Iterable<String> activeRecipes) {
+            return environment.activateRecipes(activeRecipes);
+        }
+    }
+
+    /**
+     * Loading the environment, activating styles, reading the checkstyle configuration and validating the recipes is
+     * done once per maven session for each distinct configuration, and shared by every execution with that
+     * configuration, e.g. the execution of each module when running per submodule or with {@code -T}. Every execution
+     * activates recipes of its own from the shared environment, as recipes are not guaranteed to be stateless and
+     * the executions of a multithreaded build may run them at the same time. Only when the recipes on the classpath
+     * could not be indexed, and the environment hands out the same instances every time, do the executions of a
+     * multithreaded build each load an environment of their own.
+     */
+    private LoadedRecipes loadedRecipes() throws MojoExecutionException {
+        LoadedRecipes loadedRecipes = sessionScoped("activeRecipes." + activeRecipesKey(), this::loadRecipes);
+        if (mavenSession.isParallel() && !loadedRecipes.createsRecipeInstances) {
+            return loadRecipes();
+        }
+        return loadedRecipes;
+    }
+
+    /**
+     * @return The value computed once per maven session for {@code key}, see {@link MavenSessionCache}.
+     */
+    private <T> T sessionScoped(String key, MavenSessionCache.MojoSupplier<T> valueSupplier) throws MojoExecutionException {
+        return MavenSessionCache.computeIfAbsentOrThrow(mavenSession, key, valueSupplier);
+    }
+
+    /**
+     * Everything {@link #loadRecipes()} depends on. The project properties take part because they are
+     * substituted into the rewrite configuration, and the checkstyle plugin because its configuration can differ
+     * from one module to the next.
+     */
+    private String activeRecipesKey() {
+        StringBuilder key = new StringBuilder();
+        URI uri = URI.create(configLocation);
+        key.append(uri.getScheme() != null && uri.getScheme().startsWith("http") ?
+                configLocation :
+                project.getBasedir().toPath().resolve(configLocation).normalize().toString());
+        key.append('\n').append(getActiveRecipes())
+                .append('\n').append(getActiveStyles())
+                .append('\n').append(getRecipeArtifactCoordinates())
+                .append('\n').append(checkstyleConfigFile)
+                .append('\n').append(checkstyleDetectionEnabled);
+        Plugin checkstylePlugin = project.getPlugin("org.apache.maven.plugins:maven-checkstyle-plugin");
+        if (checkstylePlugin != null) {
+            key.append('\n').append(checkstylePlugin.getConfiguration());
+        }
+        new TreeMap<>(project.getProperties()).forEach((k, v) -> key.append('\n').append(k).append('=').append(v));
+        return digest(key.toString());
+    }
+
+    private static String digest(String value) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private LoadedRecipes loadRecipes() throws MojoExecutionException {
+        URLClassLoader recipeArtifactCoordinatesClassloader = getRecipeArtifactCoordinatesClassloader();
+        if (recipeArtifactCoordinatesClassloader != null) {
+            sessionScoped("merged." + recipeArtifactCoordinatesKey(), () -> {
+                merge(getClass().getClassLoader(), recipeArtifactCoordinatesClassloader);
+                return Boolean.TRUE;
+            });
+        }
+        ResourceLoader recipeLoader = recipeLoader(recipeArtifactCoordinatesClassloader);
+        Environment env = environment(recipeArtifactCoordinatesClassloader, recipeLoader);
+        boolean createsRecipeInstances = RecipeCatalog.createsRecipeInstances(recipeLoader);
+
+        List<NamedStyles> styles;
+        styles = env.activateStyles(getActiveStyles());
+        try {
+            Plugin checkstylePlugin = project.getPlugin("org.apache.maven.plugins:maven-checkstyle-plugin");
+            if (checkstyleConfigFile != null && !checkstyleConfigFile.isEmpty()) {
+                styles.add(CheckstyleConfigLoader.loadCheckstyleConfig(Paths.get(checkstyleConfigFile), emptyMap()));
+            } else if (checkstyleDetectionEnabled && checkstylePlugin != null) {
+                Object checkstyleConfRaw = checkstylePlugin.getConfiguration();
+                if (checkstyleConfRaw instanceof Xpp3Dom) {
+                    Xpp3Dom xmlCheckstyleConf = (Xpp3Dom) checkstyleConfRaw;
+                    Xpp3Dom xmlConfigLocation = xmlCheckstyleConf.getChild("configLocation");
+
+                    if (xmlConfigLocation == null) {
+                        // When no config location is specified, the maven-checkstyle-plugin falls back on sun_checks.xml
+                        try (InputStream is = Checker.class.getResourceAsStream("/sun_checks.xml")) {
+                            if (is != null) {
+                                styles.add(CheckstyleConfigLoader.loadCheckstyleConfig(is, emptyMap()));
+                            }
+                        }
+                    } else {
+                        Path configPath = Paths.get(xmlConfigLocation.getValue());
+                        if (configPath.toFile().exists()) {
+                            styles.add(CheckstyleConfigLoader.loadCheckstyleConfig(configPath, emptyMap()));
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            getLog().warn("Unable to parse checkstyle configuration. Checkstyle will not inform rewrite execution.", e);
+        }
+
+        Recipe recipe = env.activateRecipes(getActiveRecipes());
+        if (recipe.getRecipeList().isEmpty()) {
+            return new LoadedRecipes(env, styles, emptyList(), createsRecipeInstances);
+        }
+
+        getLog().info("Validating active recipes...");
+        Collection<Validated> validated = recipe.validateAll();
+        List<Validated.Invalid> failedValidations = validated.stream().map(Validated::failures)
+                .flatMap(Collection::stream).collect(toList());
+        return new LoadedRecipes(env, styles, failedValidations, createsRecipeInstances);
+    }
+
+    private ResultsContainer runRecipe(Recipe recipe, Path baseDir, List<SourceFile> sourceFiles, ExecutionContext ctx) {
+        getLog().info("Running recipe(s)...");
+        List<Result> results = recipe.run(sourceFiles, ctx).getResults().stream()
+                .filter(source -> {
+                    // Remove ASTs originating from generated files
+                    if (source.getBefore() != null) {
+                        return !source.getBefore().getMarkers().findFirst(Generated.class).isPresent();
+                    }
+                    return true;
+                })
+                .collect(toList());
+        return new ResultsContainer(baseDir, results);
+    }
+
+    @Nullable
+    protected SourceFileCache sourceFileCache() {
+        if (!lstCacheEnabled) {
+            return null;
+        }
+        Path cacheDirectory = lstCacheDirectory == null ?
+                Paths.get(mavenSession.getTopLevelProject().getBuild().getDirectory()).resolve("rewrite").resolve("lst-cache") :
+                Paths.get(lstCacheDirectory);
+        // Entries of files that changed are never read again, so the cache is trimmed once per session.
+        MavenSessionCache.computeIfAbsent(mavenSession, "lstCachePruned:" + cacheDirectory, () -> {
+            try {
+                int removed = SourceFileCache.prune(cacheDirectory, lstCacheMaxSizeMb * 1024L * 1024L);
+                getLog().debug("Removed " + removed + " entries from the parsed source file cache at " + cacheDirectory);
+            } catch (IOException e) {
+                getLog().debug("Unable to trim the parsed source file cache at " + cacheDirectory, e);
+            }
+            return Boolean.TRUE;
+        });
+        return new SourceFileCache(cacheDirectory, getLog());
+    }
+
+    /**
+     * Writes a pom that a recipe changed, and has the modules parsed after it parse the reactor again.
+     */
+    protected void writePom(Path baseDir, Result result) {
+        assert result.getBefore() != null;
+        assert result.getAfter() != null;
+        Charset charset = result.getAfter().getCharset() == null ? StandardCharsets.UTF_8 : result.getAfter().getCharset();
+        try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(
+                baseDir.resolve(result.getBefore().getSourcePath()), charset)) {
+            sourceFileWriter.write(new String(result.getAfter().printAll().getBytes(charset), charset));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            MavenMojoProjectParser.reactorPomsChanged(mavenSession);
+        }
+    }
+
     @Nullable
     protected URLClassLoader getRecipeArtifactCoordinatesClassloader() throws MojoExecutionException {
         if (getRecipeArtifactCoordinates().isEmpty()) {
             return null;
         }
-        ArtifactResolver resolver = new ArtifactResolver(repositorySystem, mavenSession);
 
-        Set<Artifact> artifacts = new HashSet<>();
-        for (String coordinate : getRecipeArtifactCoordinates()) {
-            artifacts.add(resolver.createArtifact(coordinate));
-        }
+        // Resolved once per session for the same coordinates and repositories, e.g. for every module when running
+        // per submodule, and shared by the executions that ask for them.
+        return sessionScoped(recipeArtifactCoordinatesKey(), () -> {
+            ArtifactResolver resolver = new ArtifactResolver(repositorySystem, resolverRepositorySystem, mavenSession);
 
-        Set<Artifact> resolvedArtifacts = resolver.resolveArtifactsAndDependencies(artifacts);
-        Set<URL> urls = new HashSet<>();
-        for (Artifact artifact : resolvedArtifacts) {
-            try {
-                urls.add(artifact.getFile().toURI().toURL());
-            } catch (MalformedURLException e) {
-                throw new MojoExecutionException("Failed to resolve artifacts from rewrite.recipeArtifactCoordinates", e);
+            Set<Artifact> artifacts = new HashSet<>();
+            for (String coordinate : getRecipeArtifactCoordinates()) {
+                artifacts.add(resolver.createArtifact(coordinate));
             }
-        }
 
-        return new URLClassLoader(
-                urls.toArray(new URL[0]),
-                AbstractRewriteMojo.class.getClassLoader()
-        );
+            Set<Artifact> resolvedArtifacts = resolver.resolveArtifactsAndDependencies(artifacts);
+            List<URL> classpath = new ArrayList<>(resolvedArtifacts.size());
+            for (Artifact artifact : resolvedArtifacts) {
+                try {
+                    classpath.add(artifact.getFile().toURI().toURL());
+                } catch (MalformedURLException e) {
+                    throw new MojoExecutionException("Failed to resolve artifacts from rewrite.recipeArtifactCoordinates", e);
+                }
+            }
+            // Sorted, so that the classpath and the recipe catalog indexing it are the same from one run to the next.
+            classpath.sort(Comparator.comparing(URL::toString));
+            return new URLClassLoader(
+                    classpath.toArray(new URL[0]),
+                    AbstractRewriteMojo.class.getClassLoader()
+            );
+        });
+    }
+
+    private String recipeArtifactCoordinatesKey() {
+        StringBuilder key = new StringBuilder("recipeArtifactCoordinatesClassloader.")
+                .append(new TreeSet<>(getRecipeArtifactCoordinates()));
+        for (ArtifactRepository repository : project.getRemoteArtifactRepositories()) {
+            key.append(' ').append(repository.getUrl());
+        }
+        return key.toString();
     }
 
     private void merge(ClassLoader targetClassLoader, URLClassLoader sourceClassLoader) {
@@ -306,19 +556,21 @@ public abstract class AbstractRewriteMojo extends ConfigurableRewriteMojo {
             getLog().warn("Could not merge ClassLoaders due to unexpected targetClassLoader type", e);
             return;
         }
-        Set<String> existingVersionlessJars = new HashSet<>();
-        for (URL existingUrl : targetClassRealm.getURLs()) {
-            existingVersionlessJars.add(stripVersion(existingUrl));
-        }
-        for (URL newUrl : sourceClassLoader.getURLs()) {
-            if (!existingVersionlessJars.contains(stripVersion(newUrl))) {
-                targetClassRealm.addURL(newUrl);
+        synchronized (targetClassRealm) {
+            Set<String> existingVersionlessJars = new HashSet<>();
+            for (URL existingUrl : targetClassRealm.getURLs()) {
+                existingVersionlessJars.add(stripVersion(existingUrl));
+            }
+            for (URL newUrl : sourceClassLoader.getURLs()) {
+                if (existingVersionlessJars.add(stripVersion(newUrl))) {
+                    targetClassRealm.addURL(newUrl);
+                }
             }
         }
     }
 
-    private String stripVersion(URL jarUrl) {
-        return jarUrl.toString().replaceAll("/[^/]+/[^/]+\\.jar", "");
+    private static String stripVersion(URL jarUrl) {
+        return JAR_VERSION.matcher(jarUrl.toString()).replaceAll("");
     }
 
     public static class ResultsContainer {
@@ -18,8 +18,11 @@ package org.openrewrite.maven;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.openrewrite.FileAttributes;
 import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
 import org.openrewrite.binary.Binary;
+import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.ipc.http.HttpUrlConnectionSender;
+import org.openrewrite.maven.tree.MavenResolutionResult;
 import org.openrewrite.quark.Quark;
 import org.openrewrite.remote.Remote;
 
@@ -28,6 +31,8 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Run the configured recipes and apply the changes locally.
@@ -45,7 +50,10 @@ public class AbstractRewriteRunMojo extends AbstractRewriteMojo {
             return;
         }
 
-        ResultsContainer results = listResults();
+        listResults(this::applyResults);
+    }
+
+    private void applyResults(ResultsContainer results) {
         Throwable firstException = results.getFirstException();
         if (firstException != null) {
             getLog().error("The recipe produced an error. Please report this to the recipe author.");
@@ -140,9 +148,21 @@ public class AbstractRewriteRunMojo extends AbstractRewriteMojo {
             } catch (IOException e) {
                 throw new RuntimeException("Unable to rewrite source files", e);
             }
+
+            // The modules run after this one must see the poms as they have been written.
+            if (Stream.of(results.generated, results.deleted, results.moved, results.refactoredInPlace)
+                    .flatMap(List::stream)
+                    .anyMatch(result -> isPom(result.getBefore()) || isPom(result.getAfter()))) {
+                MavenMojoProjectParser.reactorPomsChanged(mavenSession);
+            }
         }
     }
 
+    private static boolean isPom(@Nullable SourceFile sourceFile) {
+        return sourceFile != null && (sourceFile.getMarkers().findFirst(MavenResolutionResult.class).isPresent() ||
+                                      sourceFile.getSourcePath().endsWith("pom.xml"));
+    }
+
     private static void writeAfter(Path root, Result result) {
         assert result.getAfter() != null;
         Path targetPath = root.resolve(result.getAfter().getSourcePath());
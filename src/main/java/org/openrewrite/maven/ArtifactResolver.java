@@ -1,33 +1,65 @@
 package org.openrewrite.maven;
 
+import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.repository.ArtifactRepository;
-import org.apache.maven.artifact.resolver.ArtifactResolutionRequest;
-import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.repository.RepositorySystem;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.resolution.DependencyResult;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.filter.DependencyFilterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
+/**
+ * Resolves artifacts and their transitive dependencies with maven's artifact resolver. The whole dependency graph is
+ * collected first and its artifacts are then resolved as one batch, so that the repository connector downloads
+ * whatever is missing from the local repository in parallel.
+ * <p>
+ * Nothing is kept between calls. The recipe artifacts are resolved once per session by the mojo, which keeps the
+ * class loader built from them.
+ */
 public class ArtifactResolver {
     private static final Logger LOG = LoggerFactory.getLogger(ArtifactResolver.class);
 
     private final RepositorySystem repositorySystem;
 
-    private final ArtifactRepository localRepository;
+    private final org.eclipse.aether.RepositorySystem resolverRepositorySystem;
 
-    private final List<ArtifactRepository> remoteRepositories;
+    private final MavenSession session;
 
+    private final List<RemoteRepository> remoteRepositories;
+
+    /**
+     * Resolves with the artifact resolver of the maven installation running {@code session}.
+     */
     public ArtifactResolver(RepositorySystem repositorySystem, MavenSession session) {
+        this(repositorySystem, resolverRepositorySystem(session), session);
+    }
+
+    public ArtifactResolver(RepositorySystem repositorySystem, org.eclipse.aether.RepositorySystem resolverRepositorySystem,
+                            MavenSession session) {
         this.repositorySystem = repositorySystem;
-        this.localRepository = session.getLocalRepository();
-        this.remoteRepositories = session.getCurrentProject().getRemoteArtifactRepositories();
+        this.resolverRepositorySystem = resolverRepositorySystem;
+        this.session = session;
+        this.remoteRepositories = session.getCurrentProject().getRemoteProjectRepositories();
+    }
+
+    private static org.eclipse.aether.RepositorySystem resolverRepositorySystem(MavenSession session) {
+        try {
+            return (org.eclipse.aether.RepositorySystem) session.getContainer().lookup(org.eclipse.aether.RepositorySystem.class.getName());
+        } catch (ComponentLookupException e) {
+            throw new IllegalStateException("Unable to find maven's artifact resolver", e);
+        }
     }
 
     public Artifact createArtifact(String coordinates) throws MojoExecutionException {
@@ -44,27 +76,36 @@ public class ArtifactResolver {
             return Collections.emptySet();
         }
 
-        Set<Artifact> resultArtifacts = new HashSet<>();
-        Artifact artifact = artifacts.iterator().next();
-        ArtifactResolutionRequest request = new ArtifactResolutionRequest()
-                .setArtifact(artifact)
-                .setArtifactDependencies(artifacts)
-                .setLocalRepository(localRepository)
-                .setRemoteRepositories(remoteRepositories)
-                .setResolveTransitively(true)
-                .setResolveRoot(true);
-
-        ArtifactResolutionResult resolution = repositorySystem.resolve(request);
-        if (!resolution.isSuccess()) {
-            if (resolution.hasMissingArtifacts()) {
-                LOG.warn("Missing artifacts for {}: {}", artifact.getId(), resolution.getMissingArtifacts());
+        CollectRequest collectRequest = new CollectRequest();
+        for (Artifact artifact : artifacts) {
+            collectRequest.addDependency(new Dependency(RepositoryUtils.toArtifact(artifact), JavaScopes.RUNTIME));
+        }
+        collectRequest.setRepositories(remoteRepositories);
+        DependencyRequest request = new DependencyRequest(collectRequest,
+                DependencyFilterUtils.classpathFilter(JavaScopes.RUNTIME));
+
+        DependencyResult resolution;
+        try {
+            resolution = resolverRepositorySystem.resolveDependencies(session.getRepositorySession(), request);
+        } catch (DependencyResolutionException e) {
+            Artifact artifact = artifacts.iterator().next();
+            DependencyResult result = e.getResult();
+            if (result != null) {
+                for (ArtifactResult artifactResult : result.getArtifactResults()) {
+                    if (artifactResult.isMissing()) {
+                        LOG.warn("Missing artifacts for {}: {}", artifact.getId(), artifactResult.getRequest().getArtifact());
+                    }
+                }
+                result.getCollectExceptions().forEach(ce -> LOG.warn("Failed to resolve artifacts and/or dependencies for {}: {}", artifact.getId(), ce.getMessage()));
             }
-            resolution.getExceptions().forEach(e -> LOG.warn("Failed to resolve artifacts and/or dependencies for {}: {}", artifact.getId(), e.getMessage()));
-            throw new MojoExecutionException("Failed to resolve requested artifacts transitive dependencies.");
-        } else {
-            resultArtifacts.addAll(resolution.getArtifacts());
+            LOG.warn("Failed to resolve artifacts and/or dependencies for {}: {}", artifact.getId(), e.getMessage());
+            throw new MojoExecutionException("Failed to resolve requested artifacts transitive dependencies.", e);
         }
 
-        return resultArtifacts;
+        Set<Artifact> resultArtifacts = new HashSet<>();
+        for (ArtifactResult artifactResult : resolution.getArtifactResults()) {
+            resultArtifacts.add(RepositoryUtils.toArtifact(artifactResult.getArtifact()));
+        }
+        return Collections.unmodifiableSet(resultArtifacts);
     }
 }
@@ -0,0 +1,54 @@
+package org.openrewrite.maven;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openrewrite.maven.cache.InMemoryMavenPomCache;
+
+/**
+ * The in-memory layer of the maven pom cache. Unlike the default {@link InMemoryMavenPomCache}, which keeps everything
+ * it is given for the life of the JVM, each of its caches keeps a bounded number of entries and evicts the least
+ * recently used ones.
+ * <p>
+ * Hits, misses, evictions and the size of each cache are published as "rewrite.maven.pom.cache" meters with
+ * {@code layer=memory} and a {@code cache} tag, next to the {@code layer=disk} meters of the on-disk cache.
+ */
+final class BoundedInMemoryPomCache {
+    static final String METER_NAME = "rewrite.maven.pom.cache";
+
+    private BoundedInMemoryPomCache() {
+    }
+
+    static InMemoryMavenPomCache create(int maxEntries, MeterRegistry registry) {
+        return new InMemoryMavenPomCache(
+                cache("pom", maxEntries, registry),
+                cache("metadata", maxEntries, registry),
+                cache("repository", maxEntries, registry),
+                cache("dependency", maxEntries, registry)
+        );
+    }
+
+    private static <K, V> Cache<K, V> cache(String name, int maxEntries, MeterRegistry registry) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                // evict on the thread that adds the entry, the cache is never larger than it should be
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        FunctionCounter.builder(METER_NAME, cache, c -> c.stats().hitCount())
+                .tags("layer", "memory", "cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder(METER_NAME, cache, c -> c.stats().missCount())
+                .tags("layer", "memory", "cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder(METER_NAME + ".evictions", cache, c -> c.stats().evictionCount())
+                .tags("layer", "memory", "cache", name)
+                .register(registry);
+        Gauge.builder(METER_NAME + ".size", cache, Cache::estimatedSize)
+                .tags("layer", "memory", "cache", name)
+                .register(registry);
+        return cache;
+    }
+}
@@ -0,0 +1,171 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Inspect and trim the maven pom cache on disk.<br>
+ * {@code ./mvnw rewrite:cache} reports what the cache holds.<br>
+ * {@code ./mvnw rewrite:cache -Dmode=prune -DmaxAgeDays=30 -DmaxSizeMb=500} removes the poms written more than 30 days
+ * ago, then the oldest poms until the rest take up at most 500 MB.<br>
+ * {@code ./mvnw rewrite:cache -Dmode=compact} frees the disk space taken by poms that were written again since.<br>
+ * Whatever running builds are using is left as it is.<br>
+ * {@code ./mvnw rewrite:cache -Dmode=export -Dbundle=poms.bundle} exports the poms into a bundle, which
+ * {@code -Dmode=import} imports into another cache, or which seeds the cache of builds through {@code pomCacheSeed}.
+ */
+@Mojo(name = "cache", threadSafe = true, requiresProject = false, aggregator = true)
+@SuppressWarnings("unused")
+public class CacheMojo extends ConfigurableRewriteMojo {
+
+    /**
+     * One of {@code stats}, {@code prune}, {@code compact}, {@code export} or {@code import}.
+     */
+    @SuppressWarnings("NotNullFieldNotInitialized")
+    @Parameter(property = "mode", defaultValue = "stats")
+    String mode;
+
+    /**
+     * When pruning, the number of days after which a pom is removed.
+     */
+    @Nullable
+    @Parameter(property = "maxAgeDays")
+    Integer maxAgeDays;
+
+    /**
+     * When pruning, the size in megabytes the poms of each backend are trimmed to, removing the oldest first.
+     */
+    @Nullable
+    @Parameter(property = "maxSizeMb")
+    Integer maxSizeMb;
+
+    /**
+     * The bundle file to export the poms to or import them from.
+     */
+    @Nullable
+    @Parameter(property = "bundle")
+    String bundle;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        PomCacheSettings settings = getPomCacheSettings();
+        Path cacheDirectory = settings.getCacheDirectory();
+        try {
+            switch (mode.trim().toLowerCase(Locale.ROOT)) {
+                case "stats":
+                    break;
+                case "prune":
+                    if (maxAgeDays == null && maxSizeMb == null) {
+                        throw new MojoExecutionException("Set maxAgeDays and/or maxSizeMb to prune the maven pom cache");
+                    }
+                    long expireBefore = maxAgeDays == null ? Long.MIN_VALUE :
+                            System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeDays);
+                    long maxBytes = maxSizeMb == null ? Long.MAX_VALUE : maxSizeMb * 1024L * 1024L;
+                    logRemoved("rocksdb", "shard(s)", ShardedRocksdbMavenPomCache.prune(cacheDirectory, expireBefore, maxBytes));
+                    logRemoved("mmap", "log", MappedFileMavenPomCache.prune(cacheDirectory, expireBefore, maxBytes));
+                    break;
+                case "compact":
+                    logRemoved("rocksdb", "shard(s)", ShardedRocksdbMavenPomCache.compact(cacheDirectory));
+                    logRemoved("mmap", "log", MappedFileMavenPomCache.compact(cacheDirectory));
+                    break;
+                case "export":
+                    try (RawPomCache cache = open(settings)) {
+                        long exported = PomCacheBundle.export(cache, bundle());
+                        getLog().info(String.format("Exported %d poms to %s", exported, bundle()));
+                    }
+                    break;
+                case "import":
+                    try (RawPomCache cache = open(settings)) {
+                        long imported = PomCacheBundle.importInto(cache, bundle());
+                        getLog().info(String.format("Imported %d poms from %s", imported, bundle()));
+                    }
+                    break;
+                default:
+                    throw new MojoExecutionException("Unknown mode '" + mode + "', expected one of 'stats', 'prune', " +
+                                                     "'compact', 'export' or 'import'");
+            }
+
+            getLog().info("Maven pom cache at " + cacheDirectory);
+            logStatistics("rocksdb", ShardedRocksdbMavenPomCache.statistics(cacheDirectory));
+            logStatistics("mmap", MappedFileMavenPomCache.statistics(cacheDirectory));
+
+            Path legacyDirectory = cacheDirectory.getParent();
+            if (Files.exists(legacyDirectory.resolve("CURRENT"))) {
+                getLog().info(String.format("The pom cache of earlier versions of this plugin in %s is not used anymore " +
+                                            "and takes up %s", legacyDirectory, megabytes(legacyDiskBytes(legacyDirectory))));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to maintain the maven pom cache at " + cacheDirectory, e);
+        }
+    }
+
+    private Path bundle() throws MojoExecutionException {
+        if (bundle == null) {
+            throw new MojoExecutionException("Set bundle to the file to " + mode.trim() + " the maven pom cache");
+        }
+        return Paths.get(bundle);
+    }
+
+    private static RawPomCache open(PomCacheSettings settings) {
+        return settings.getBackend() == PomCacheSettings.Backend.MMAP ?
+                new MappedFileMavenPomCache(settings.getCacheDirectory()) :
+                new ShardedRocksdbMavenPomCache(settings.getCacheDirectory(), ShardedRocksdbMavenPomCache.DEFAULT_SHARDS);
+    }
+
+    private void logStatistics(String backend, PomCacheStatistics statistics) {
+        if (statistics.getDiskBytes() == 0) {
+            return;
+        }
+        getLog().info(String.format("  %s: %d poms of %s, %s on disk%s", backend, statistics.getPoms(),
+                megabytes(statistics.getBytes()), megabytes(statistics.getDiskBytes()),
+                oldest(statistics.getOldestWrittenAt())));
+    }
+
+    private void logRemoved(String backend, String stores, PomCacheStatistics removed) {
+        if (removed.getPoms() > 0 || removed.getDiskBytes() > 0) {
+            getLog().info(String.format("Removed %d poms of %s from the %s pom cache, freeing %s on disk", removed.getPoms(),
+                    megabytes(removed.getBytes()), backend, megabytes(removed.getDiskBytes())));
+        }
+        if (removed.getStoresInUse() > 0) {
+            getLog().warn(String.format("Skipped %d %s of the %s pom cache, being used by running builds",
+                    removed.getStoresInUse(), stores, backend));
+        }
+    }
+
+    private static String oldest(long writtenAt) {
+        if (writtenAt == Long.MAX_VALUE) {
+            return "";
+        }
+        return writtenAt == 0 ? ", some written before write times were recorded" :
+                ", the oldest written " + Instant.ofEpochMilli(writtenAt);
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * The files of the earlier cache are directly in its directory, next to those of the other caches.
+     */
+    private static long legacyDiskBytes(Path directory) throws IOException {
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file)) {
+                    bytes += Files.size(file);
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -1,9 +1,11 @@
 package org.openrewrite.maven;
 
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.openrewrite.internal.lang.Nullable;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -47,6 +49,94 @@ public abstract class ConfigurableRewriteMojo extends AbstractMojo {
     @Parameter(property = "rewrite.pomCacheDirectory", alias = "pomCacheDirectory")
     protected String pomCacheDirectory;
 
+    /**
+     * The number of poms, and of each kind of repository metadata, kept in memory for the rest of the build before
+     * the least recently used ones are evicted. Evicted poms are read from the on-disk pom cache again when needed.
+     */
+    @Parameter(property = "rewrite.pomCacheMaxEntries", alias = "pomCacheMaxEntries", defaultValue = "10000")
+    protected int pomCacheMaxEntries;
+
+    /**
+     * How poms are kept on disk: {@code rocksdb}, or {@code mmap} for a memory-mapped log that needs no native code.
+     * When RocksDB cannot be loaded, e.g. on a 32-bit JVM, the memory-mapped log is used instead.
+     */
+    @Parameter(property = "rewrite.pomCacheBackend", alias = "pomCacheBackend", defaultValue = "rocksdb")
+    protected String pomCacheBackend;
+
+    /**
+     * A bundle exported by {@code rewrite:cache -Dmode=export}, whose poms are imported into the on-disk pom cache
+     * before the first pom is parsed, so that builds on agents without a cache start with a warm one. A bundle is
+     * imported once into each cache.
+     */
+    @Nullable
+    @Parameter(property = "rewrite.pomCacheSeed", alias = "pomCacheSeed")
+    protected String pomCacheSeed;
+
+    /**
+     * The number of hours the on-disk pom cache remembers that the repositories do not have a pom, so that builds do
+     * not ask for it again in the meantime, or 0 to ask for it again on every build.
+     */
+    @Parameter(property = "rewrite.pomCacheMissingTtlHours", alias = "pomCacheMissingTtlHours", defaultValue = "24")
+    protected int pomCacheMissingTtlHours;
+
+    /**
+     * The number of threads downloading the parents and imported boms of the reactor's poms into the pom cache before
+     * the poms are resolved, or 0 to let resolution download them one after the other. Nothing is downloaded offline.
+     */
+    @Parameter(property = "rewrite.pomPrefetchThreads", alias = "pomPrefetchThreads", defaultValue = "8")
+    protected int pomPrefetchThreads;
+
+    /**
+     * Take the dependencies of the reactor's poms from those maven resolved for its projects, rather than resolving
+     * them again. The dependencies of projects maven has not resolved the dependencies of are still resolved by rewrite.
+     */
+    @Parameter(property = "rewrite.dependenciesFromMaven", alias = "dependenciesFromMaven", defaultValue = "false")
+    protected boolean dependenciesFromMaven;
+
+    protected PomCacheSettings getPomCacheSettings() throws MojoExecutionException {
+        try {
+            return new PomCacheSettings(pomCacheDirectory, pomCacheMaxEntries, PomCacheSettings.Backend.parse(pomCacheBackend),
+                    pomCacheSeed, Duration.ofHours(Math.max(0, pomCacheMissingTtlHours)));
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * When enabled, parsed resource files such as XML, YAML, JSON and properties files are cached on disk and loaded
+     * instead of parsed again by later runs, for as long as their content does not change.
+     */
+    @Parameter(property = "rewrite.lstCacheEnabled", alias = "lstCacheEnabled", defaultValue = "false")
+    protected boolean lstCacheEnabled;
+
+    /**
+     * The directory of the parsed source file cache. Defaults to {@code target/rewrite/lst-cache} of the top level project.
+     */
+    @Nullable
+    @Parameter(property = "rewrite.lstCacheDirectory", alias = "lstCacheDirectory")
+    protected String lstCacheDirectory;
+
+    /**
+     * The size in megabytes the parsed source file cache is trimmed to once per build, removing the entries used
+     * longest ago first.
+     */
+    @Parameter(property = "rewrite.lstCacheMaxSizeMb", alias = "lstCacheMaxSizeMb", defaultValue = "256")
+    protected int lstCacheMaxSizeMb;
+
+    /**
+     * When enabled, the recipes, styles and declarative recipes found on the classpath are indexed on disk, so that
+     * later runs with the same recipe jars load them from the index instead of scanning every class again.
+     */
+    @Parameter(property = "rewrite.recipeCatalogEnabled", alias = "recipeCatalogEnabled", defaultValue = "true")
+    protected boolean recipeCatalogEnabled;
+
+    /**
+     * The directory of the recipe catalog. Defaults to {@code ~/.rewrite-cache/recipe-catalog}.
+     */
+    @Nullable
+    @Parameter(property = "rewrite.recipeCatalogDirectory", alias = "recipeCatalogDirectory")
+    protected String recipeCatalogDirectory;
+
     /**
      * When enabled, skip parsing Maven `pom.xml`s, and any transitive poms, as source files.
      * This can be an efficiency improvement in certain situations.
@@ -54,6 +144,33 @@ public abstract class ConfigurableRewriteMojo extends AbstractMojo {
     @Parameter(property = "skipMavenParsing", defaultValue = "false")
     protected boolean skipMavenParsing;
 
+    /**
+     * Whether java sources are parsed against the classpath of their project, attributing their types. One of
+     * {@code true}, the default, {@code false} or {@code auto}, which parses without a classpath when every active
+     * recipe is known not to need types, e.g. formatting recipes and recipes for XML, YAML or properties files.
+     */
+    @Parameter(property = "rewrite.typeAttribution", alias = "typeAttribution", defaultValue = "true")
+    protected String typeAttribution;
+
+    /**
+     * The kinds of source files to parse, as a comma separated list of {@code maven}, {@code java}, {@code xml},
+     * {@code yaml}, {@code json}, {@code properties}, {@code proto}, {@code hcl} and {@code other}, {@code all}, the
+     * default, or {@code auto} to only parse the kinds the active recipes can change. E.g. when only maven recipes are
+     * active, only poms are parsed.
+     */
+    @Parameter(property = "rewrite.sourceKinds", alias = "sourceKinds", defaultValue = "all")
+    protected String sourceKinds;
+
+    /**
+     * A comma separated list of literal text that the active recipes look for, e.g. the fully qualified name of the
+     * type a recipe changes, a package or an artifactId. When set, java sources and resources that contain none of it
+     * are not parsed, as the recipes cannot change them. Poms are always parsed. Mind that a source may refer to a type
+     * by its simple name, e.g. from the same package.
+     */
+    @Nullable
+    @Parameter(property = "rewrite.prefilterTokens", alias = "prefilterTokens")
+    protected String prefilterTokens;
+
     @Nullable
     @Parameter(property = "rewrite.checkstyleConfigFile", alias = "checkstyleConfigFile")
     protected String checkstyleConfigFile;
@@ -130,6 +247,22 @@ public abstract class ConfigurableRewriteMojo extends AbstractMojo {
     @Parameter(property = "rewrite.runPerSubmodule", alias = "runPerSubmodule", defaultValue = "false")
     protected boolean runPerSubmodule;
 
+    /**
+     * The number of worker threads used to parse the modules of the reactor when running across all projects.
+     * Source files are still returned in reactor order, so the results do not depend on this setting.
+     */
+    @Parameter(property = "rewrite.parseThreads", alias = "parseThreads", defaultValue = "1")
+    protected int parseThreads;
+
+    /**
+     * When greater than zero, projects are parsed and run in batches of this many projects, and the results of each
+     * batch are written before the next one is parsed. Only the source files of one batch are held in memory at a
+     * time, which bounds the heap used by large reactors. Only applies when running across all projects, and only
+     * suits recipes that do not need to see every source file of the reactor at once.
+     */
+    @Parameter(property = "rewrite.streamingBatchSize", alias = "streamingBatchSize", defaultValue = "0")
+    protected int streamingBatchSize;
+
     @Nullable
     @Parameter(property = "rewrite.recipeArtifactCoordinates")
     private String recipeArtifactCoordinates;
@@ -180,6 +313,10 @@ public abstract class ConfigurableRewriteMojo extends AbstractMojo {
         return computedStyles;
     }
 
+    protected Set<String> getPrefilterTokens() {
+        return toSet(prefilterTokens);
+    }
+
     protected Set<String> getRecipeArtifactCoordinates() {
         if (computedRecipeArtifactCoordinates == null) {
             synchronized (this) {
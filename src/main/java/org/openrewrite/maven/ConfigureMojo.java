@@ -10,11 +10,6 @@ import org.openrewrite.Result;
 import org.openrewrite.xml.tree.Xml;
 
 import javax.annotation.Nullable;
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
@@ -61,7 +56,7 @@ public class ConfigureMojo extends AbstractRewriteMojo {
         Path baseDir = getBaseDir();
 
         ExecutionContext ctx = executionContext();
-        Xml.Document maven = new MavenMojoProjectParser(getLog(), baseDir, pomCacheEnabled, pomCacheDirectory, runtime, skipMavenParsing, getExclusions(), getPlainTextMasks(), sizeThresholdMb, mavenSession, settingsDecrypter).parseMaven(project, Collections.emptyList(), ctx);
+        Xml.Document maven = new MavenMojoProjectParser(getLog(), baseDir, pomCacheEnabled, getPomCacheSettings(), pomPrefetchThreads, dependenciesFromMaven, runtime, skipMavenParsing, getExclusions(), getPlainTextMasks(), sizeThresholdMb, mavenSession, settingsDecrypter, null, ParsePlan.FULL).parseMaven(project, Collections.emptyList(), ctx);
         List<Xml.Document> poms = Arrays.asList(maven);
         List<Result> results = new ChangePluginConfiguration(groupId, artifactId, getConfiguration())
                 .doNext(new ChangePluginDependencies(groupId, artifactId, dependencies))
@@ -71,17 +66,7 @@ public class ConfigureMojo extends AbstractRewriteMojo {
             getLog().warn("No changes made to plugin " + artifactId + " configuration");
             return;
         }
-        Result result = results.get(0);
-
-        assert result.getBefore() != null;
-        assert result.getAfter() != null;
-        Charset charset = result.getAfter().getCharset() == null ? StandardCharsets.UTF_8 : result.getAfter().getCharset();
-        try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(
-                baseDir.resolve(result.getBefore().getSourcePath()), charset)) {
-            sourceFileWriter.write(new String(result.getAfter().printAll().getBytes(charset), charset));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        writePom(baseDir, results.get(0));
         getLog().info("Changed " + artifactId + " in " + project.getFile().getPath());
     }
 
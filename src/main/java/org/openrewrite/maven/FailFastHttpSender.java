@@ -0,0 +1,76 @@
+package org.openrewrite.maven;
+
+import org.openrewrite.ipc.http.HttpSender;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends the requests of rewrite's pom downloader, failing those that cannot succeed without waiting on the network:
+ * every request to a remote repository when maven is offline, and requests that could not connect, timed out or were
+ * answered with a server error before during the session. Rewrite remembers which poms the repositories do not have,
+ * but not these failures, and even retries timeouts, so every module of a reactor would otherwise wait on them again.
+ * <p>
+ * Other client errors are not remembered: a 401 or 403 is answered to the authenticated request that rewrite retries
+ * anonymously, and a 429 or a 403 of a proxy may not last. Requests are told apart by their credentials as well.
+ * <p>
+ * Offline, remote requests are answered as unavailable rather than failed, so that neither are the repositories taken
+ * for unreachable nor the poms for missing by the pom caches, which later builds of the JVM share.
+ */
+final class FailFastHttpSender implements HttpSender {
+    private static final int UNAVAILABLE = 503;
+
+    private final HttpSender delegate;
+    private final boolean offline;
+
+    /**
+     * The requests that failed, with the server error they were answered with or the message they failed with.
+     */
+    private final Map<String, Object> failures = new ConcurrentHashMap<>();
+
+    FailFastHttpSender(HttpSender delegate, boolean offline) {
+        this.delegate = delegate;
+        this.offline = offline;
+    }
+
+    @Override
+    public Response send(Request request) {
+        if ("file".equals(request.getUrl().getProtocol())) {
+            return delegate.send(request);
+        }
+        if (offline) {
+            return response(UNAVAILABLE, "Maven is offline");
+        }
+
+        String key = request.getMethod() + " " + request.getUrl() + " " +
+                     Objects.hashCode(request.getRequestHeaders().get("Authorization"));
+        Object failure = failures.get(key);
+        if (failure instanceof Integer) {
+            return response((Integer) failure, "Failed before in this build");
+        } else if (failure != null) {
+            throw new UncheckedIOException(new IOException("Failed before in this build: " + failure));
+        }
+
+        Response response;
+        try {
+            response = delegate.send(request);
+        } catch (RuntimeException e) {
+            failures.put(key, String.valueOf(e.getCause() == null ? e.getMessage() : e.getCause()));
+            throw e;
+        }
+        if (response.getCode() >= 500) {
+            failures.put(key, response.getCode());
+        }
+        return response;
+    }
+
+    private static Response response(int code, String body) {
+        return new Response(code, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), () -> {
+        });
+    }
+}
@@ -0,0 +1,274 @@
+package org.openrewrite.maven;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.*;
+
+/**
+ * A set of glob patterns, as understood by {@link FileSystem#getPathMatcher(String)}, compiled once into a trie of
+ * path segments. A path is matched by walking its segments through the trie, so literal segments cost a hash lookup
+ * however many patterns share them, and the time to match a path does not grow with the number of patterns.
+ * <p>
+ * Patterns are split on {@code /} into segments, each being a literal, a glob confined to one segment, or {@code **}
+ * on its own, which spans one or more whole segments. That is exactly what the JDK's glob syntax means for such
+ * patterns. Patterns that do not split that way, e.g. {@code **.java} or {@code {a/b,c}}, are matched by the JDK's
+ * own matcher, as are all patterns on file systems whose separator is not {@code /}.
+ */
+final class GlobMatcher {
+    private static final GlobMatcher EMPTY = new GlobMatcher(new Node(), Collections.emptyList(), 0);
+
+    private final Node root;
+    private final List<PathMatcher> fallbacks;
+    private final int size;
+
+    private GlobMatcher(Node root, List<PathMatcher> fallbacks, int size) {
+        this.root = root;
+        this.fallbacks = fallbacks;
+        this.size = size;
+    }
+
+    static GlobMatcher compile(FileSystem fileSystem, Collection<String> globs) {
+        if (globs.isEmpty()) {
+            return EMPTY;
+        }
+        Node root = new Node();
+        List<PathMatcher> fallbacks = new ArrayList<>(0);
+        boolean segmented = "/".equals(fileSystem.getSeparator());
+        for (String glob : globs) {
+            // Compiling every pattern with the JDK first reports malformed patterns just like before.
+            PathMatcher matcher = fileSystem.getPathMatcher("glob:" + glob);
+            List<String> segments = segmented ? segments(glob) : null;
+            Map<String, PathMatcher> wildcards = segments == null ? null : wildcards(fileSystem, segments);
+            if (wildcards == null) {
+                fallbacks.add(matcher);
+            } else {
+                root.add(segments, 0, wildcards);
+            }
+        }
+        return new GlobMatcher(root, fallbacks, globs.size());
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param path A path, matched the way {@link PathMatcher#matches(Path)} would match it.
+     */
+    boolean matches(Path path) {
+        if (isEmpty()) {
+            return false;
+        }
+        if (root.matches(path, path.getRoot() != null)) {
+            return true;
+        }
+        for (PathMatcher fallback : fallbacks) {
+            if (fallback.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Match a relative path as if it were resolved against the root of the file system, without resolving it.
+     */
+    boolean matchesFromRoot(Path relativePath) {
+        if (isEmpty()) {
+            return false;
+        }
+        if (root.matches(relativePath, true)) {
+            return true;
+        }
+        if (!fallbacks.isEmpty()) {
+            Path path = relativePath.getFileSystem().getRootDirectories().iterator().next().resolve(relativePath);
+            for (PathMatcher fallback : fallbacks) {
+                if (fallback.matches(path)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The segments of a glob, or {@code null} when a {@code /} is part of a group or escaped, or {@code **}
+     * is not a whole segment, so the glob cannot be matched one segment at a time.
+     */
+    @Nullable
+    private static List<String> segments(String glob) {
+        List<String> segments = new ArrayList<>();
+        boolean inBrackets = false;
+        boolean inGroup = false;
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (inBrackets) {
+                // within brackets a backslash is not an escape, and the first ']' closes them
+                inBrackets = c != ']';
+            } else if (c == '\\') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                    return null;
+                }
+                i++;
+            } else if (c == '[') {
+                inBrackets = true;
+            } else if (c == '{') {
+                inGroup = true;
+            } else if (c == '}') {
+                inGroup = false;
+            } else if (c == '/') {
+                if (inGroup) {
+                    return null;
+                }
+                segments.add(glob.substring(start, i));
+                start = i + 1;
+            }
+        }
+        segments.add(glob.substring(start));
+
+        for (String segment : segments) {
+            if (!"**".equals(segment) && segment.contains("**")) {
+                return null;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * @return The matchers of the segments that are neither literal nor {@code **}, or {@code null} when one of them
+     * is malformed on its own, so the glob is better left to the JDK as a whole.
+     */
+    @Nullable
+    private static Map<String, PathMatcher> wildcards(FileSystem fileSystem, List<String> segments) {
+        Map<String, PathMatcher> wildcards = new HashMap<>();
+        for (String segment : segments) {
+            if (!"**".equals(segment) && !isLiteral(segment)) {
+                try {
+                    wildcards.put(segment, fileSystem.getPathMatcher("glob:" + segment));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return wildcards;
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            switch (segment.charAt(i)) {
+                case '*':
+                case '?':
+                case '[':
+                case '{':
+                case '\\':
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>(4);
+        private final Map<String, Wildcard> wildcards = new LinkedHashMap<>(0);
+
+        /**
+         * The node reached by a {@code **} segment.
+         */
+        @Nullable
+        private Node anySegments;
+
+        /**
+         * Whether this node was reached by {@code **}, and so also consumes any number of further segments.
+         */
+        private boolean loop;
+
+        private boolean terminal;
+
+        void add(List<String> segments, int index, Map<String, PathMatcher> segmentMatchers) {
+            if (index == segments.size()) {
+                terminal = true;
+                return;
+            }
+            String segment = segments.get(index);
+            Node child;
+            if ("**".equals(segment)) {
+                if (anySegments == null) {
+                    anySegments = new Node();
+                    anySegments.loop = true;
+                }
+                child = anySegments;
+            } else if (isLiteral(segment)) {
+                child = literals.computeIfAbsent(segment, s -> new Node());
+            } else {
+                child = wildcards.computeIfAbsent(segment, s -> new Wildcard(segmentMatchers.get(s), new Node())).node;
+            }
+            child.add(segments, index + 1, segmentMatchers);
+        }
+
+        boolean matches(Path path, boolean fromRoot) {
+            List<Node> states = Collections.singletonList(this);
+            if (fromRoot) {
+                // The root separator of an absolute path is matched like an empty first segment.
+                states = step(states, path.getFileSystem().getPath(""));
+            }
+            for (Path name : path) {
+                if (states.isEmpty()) {
+                    return false;
+                }
+                states = step(states, name);
+            }
+            for (Node state : states) {
+                if (state.terminal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static List<Node> step(List<Node> states, Path name) {
+            List<Node> next = new ArrayList<>(states.size() + 1);
+            String segment = name.toString();
+            for (Node state : states) {
+                if (state.loop) {
+                    addState(next, state);
+                }
+                Node literal = state.literals.get(segment);
+                if (literal != null) {
+                    addState(next, literal);
+                }
+                for (Wildcard wildcard : state.wildcards.values()) {
+                    if (wildcard.matcher.matches(name)) {
+                        addState(next, wildcard.node);
+                    }
+                }
+                if (state.anySegments != null) {
+                    addState(next, state.anySegments);
+                }
+            }
+            return next;
+        }
+
+        private static void addState(List<Node> states, Node state) {
+            for (Node existing : states) {
+                if (existing == state) {
+                    return;
+                }
+            }
+            states.add(state);
+        }
+    }
+
+    private static final class Wildcard {
+        private final PathMatcher matcher;
+        private final Node node;
+
+        private Wildcard(PathMatcher matcher, Node node) {
+            this.matcher = matcher;
+            this.node = node;
+        }
+    }
+}
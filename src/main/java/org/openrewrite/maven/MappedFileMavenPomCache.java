@@ -0,0 +1,563 @@
+package org.openrewrite.maven;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.tree.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A pom cache on disk that needs no native code, for JVMs on which RocksDB is unavailable, e.g. 32-bit JVMs or
+ * container images that do not allow native libraries to be loaded.
+ * <p>
+ * Poms are appended to a single log file, which is memory-mapped for reading in windows of fixed size, each mapped
+ * once it is full, while the records at the end of the log are read from the file. The index of the log, from the
+ * coordinates of each pom to its latest record, is built when the cache is opened and extended whenever a pom is
+ * missing from it, picking up what other JVMs appended since. Any number of JVMs can use the cache at the same time,
+ * each locking the log while it appends to it. Every record carries a checksum, so that a record being appended, or
+ * left incomplete by a JVM that died while appending it, is never read, and the next record appended overwrites it.
+ * <p>
+ * The log only grows, so it is compacted when the cache is opened by a JVM that is its only user and more than half
+ * of it holds records of poms that were written again since. The static methods maintain the log when no JVM has it
+ * open.
+ * <p>
+ * Like {@link ShardedRocksdbMavenPomCache}, only poms, and which poms the repositories do not have, are kept on disk.
+ * Hits and misses are counted by "rewrite.maven.pom.cache" meters with {@code layer=disk}.
+ */
+public class MappedFileMavenPomCache implements MavenPomCache, RawPomCache {
+    private static final String LOG = "poms.log";
+    private static final String USERS = "poms.users";
+
+    private static final int MAGIC = 0x52575043;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    /**
+     * The length of the key, the length of the value and the checksum of both.
+     */
+    private static final int RECORD_HEADER_BYTES = 12;
+
+    /**
+     * The size of the windows the log is mapped in, which a 32-bit JVM finds room for in its address space.
+     */
+    static final int WINDOW_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * The log holds up to 512MB of poms, which a 32-bit JVM can map next to its heap, after which nothing more is
+     * written.
+     */
+    private static final long MAX_LOG_BYTES = 32L * WINDOW_BYTES;
+
+    private final Duration missingTtl;
+
+    private final FileChannel log;
+
+    private final FileChannel users;
+
+    private final Map<String, Integer> index = new HashMap<>();
+
+    /**
+     * The end of the last record in the index, where the next record is appended.
+     */
+    private int indexed = HEADER_BYTES;
+
+    @Nullable
+    private Windows mapped;
+
+    private final Counter hits = Metrics.counter(BoundedInMemoryPomCache.METER_NAME, "layer", "disk", "result", "hit");
+    private final Counter misses = Metrics.counter(BoundedInMemoryPomCache.METER_NAME, "layer", "disk", "result", "miss");
+
+    /**
+     * @param cacheDirectory The directory holding the log.
+     */
+    public MappedFileMavenPomCache(Path cacheDirectory) {
+        this(cacheDirectory, PomCacheSettings.DEFAULT_MISSING_TTL);
+    }
+
+    /**
+     * @param cacheDirectory The directory holding the log.
+     * @param missingTtl     How long a pom the repositories do not have is not asked for again, or zero to ask for it
+     *                       again on every build.
+     */
+    public MappedFileMavenPomCache(Path cacheDirectory, Duration missingTtl) {
+        this.missingTtl = missingTtl;
+        Path logFile = cacheDirectory.resolve(LOG);
+        FileChannel users = null;
+        FileChannel log = null;
+        try {
+            Files.createDirectories(cacheDirectory);
+
+            // Every JVM using the log holds a shared lock on the users file, so the one that can lock it exclusively is
+            // the only user and can replace the log with a compacted copy.
+            users = FileChannel.open(cacheDirectory.resolve(USERS), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock alone = lock(users, false);
+            if (alone != null) {
+                try {
+                    rewrite(logFile, false, Long.MIN_VALUE, Long.MAX_VALUE);
+                } catch (IOException ignored) {
+                    // compacted by the next JVM to open it alone
+                } finally {
+                    alone.release();
+                }
+            }
+            // held until the users file is closed
+            lock(users, true);
+            this.users = users;
+
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.log = log;
+            this.mapped = new Windows(log);
+            writeHeader();
+            catchUp();
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(log);
+            closeQuietly(users);
+            if (e instanceof IOException) {
+                throw new UncheckedIOException("Unable to open maven pom cache at " + logFile, (IOException) e);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    @Override
+    public @Nullable ResolvedPom getResolvedDependencyPom(ResolvedGroupArtifactVersion dependency) {
+        return null;
+    }
+
+    @Override
+    public void putResolvedDependencyPom(ResolvedGroupArtifactVersion dependency, ResolvedPom resolved) {
+    }
+
+    @Override
+    public @Nullable Optional<MavenMetadata> getMavenMetadata(URI repo, GroupArtifactVersion gav) {
+        return null;
+    }
+
+    @Override
+    public void putMavenMetadata(URI repo, GroupArtifactVersion gav, MavenMetadata metadata) {
+    }
+
+    @Override
+    public synchronized @Nullable Optional<Pom> getPom(ResolvedGroupArtifactVersion gav) throws MavenDownloadingException {
+        String key = gav.toString();
+        try {
+            Integer position = index.get(key);
+            if (position == null) {
+                catchUp();
+                position = index.get(key);
+            }
+            Optional<Pom> pom = position == null ? null : PomCacheSerializer.read(value(windows(), position), missingTtl);
+            if (pom == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return pom;
+        } catch (IOException | UncheckedIOException e) {
+            throw new MavenDownloadingException("Failed to deserialize POM from memory-mapped cache", e,
+                    new GroupArtifactVersion(gav.getGroupId(), gav.getArtifactId(), gav.getVersion()));
+        }
+    }
+
+    @Override
+    public synchronized void putPom(ResolvedGroupArtifactVersion gav, @Nullable Pom pom) {
+        if (pom == null && missingTtl.isZero()) {
+            return;
+        }
+        // when the pom cannot be written, it is still cached in memory
+        append(record(PomCacheSerializer.key(gav), pom == null ?
+                PomCacheSerializer.serializeMissing() : PomCacheSerializer.serialize(pom)));
+    }
+
+    @Override
+    public synchronized void forEach(EntryConsumer consumer) throws IOException {
+        catchUp();
+        Windows windows = windows();
+        for (Integer position : index.values()) {
+            consumer.accept(key(windows, position), value(windows, position));
+        }
+    }
+
+    @Override
+    public synchronized boolean putIfAbsent(byte[] key, byte[] value) {
+        String indexKey = new String(key, StandardCharsets.UTF_8);
+        try {
+            if (!index.containsKey(indexKey)) {
+                catchUp();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return !index.containsKey(indexKey) && append(record(key, value));
+    }
+
+    @Override
+    public @Nullable Optional<MavenRepository> getNormalizedRepository(MavenRepository repository) {
+        return null;
+    }
+
+    @Override
+    public void putNormalizedRepository(MavenRepository repository, MavenRepository normalized) {
+    }
+
+    @Override
+    public synchronized void close() {
+        mapped = null;
+        closeQuietly(log);
+        // closing the channel releases the lock
+        closeQuietly(users);
+    }
+
+    /**
+     * @return Whether the record was appended.
+     */
+    private boolean append(ByteBuffer record) {
+        try (FileLock ignored = log.lock()) {
+            catchUp();
+            if ((long) indexed + record.remaining() > MAX_LOG_BYTES) {
+                return false;
+            }
+            // Anything beyond the indexed records is incomplete, so the record is written over it.
+            long position = indexed;
+            while (record.hasRemaining()) {
+                position += log.write(record, position);
+            }
+            catchUp();
+            return true;
+        } catch (IOException | OverlappingFileLockException e) {
+            return false;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        try (FileLock ignored = log.lock()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (log.size() == 0) {
+                header.putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                while (header.hasRemaining()) {
+                    log.write(header, header.position());
+                }
+                return;
+            }
+            readHeader(log, header);
+        } catch (OverlappingFileLockException e) {
+            // another class realm of this JVM has the log open already, so it has a header
+            readHeader(log, ByteBuffer.allocate(HEADER_BYTES));
+        }
+    }
+
+    private static void readHeader(FileChannel log, ByteBuffer header) throws IOException {
+        while (header.hasRemaining() && log.read(header, header.position()) >= 0) {
+            // read until the header is complete or the log ends
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IllegalStateException("Not a maven pom cache of version " + VERSION);
+        }
+    }
+
+    /**
+     * Indexes the records appended to the log since it was last indexed.
+     */
+    private void catchUp() throws IOException {
+        long size = Math.min(log.size(), MAX_LOG_BYTES);
+        if (size > indexed) {
+            indexed = scan(windows(), indexed, (int) size, (key, position, length) -> index.put(key, position));
+        }
+    }
+
+    private Windows windows() {
+        if (mapped == null) {
+            throw new IllegalStateException("The maven pom cache is closed");
+        }
+        return mapped;
+    }
+
+    private static ByteBuffer record(byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(value);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + key.length + value.length);
+        record.putInt(key.length).putInt(value.length).putInt((int) crc.getValue()).put(key).put(value);
+        record.flip();
+        return record;
+    }
+
+    private static byte[] key(Windows log, int position) throws IOException {
+        ByteBuffer header = log.read(position, RECORD_HEADER_BYTES);
+        byte[] key = new byte[header.getInt(0)];
+        log.read(position + RECORD_HEADER_BYTES, key.length).get(key);
+        return key;
+    }
+
+    private static byte[] value(Windows log, int position) throws IOException {
+        ByteBuffer header = log.read(position, RECORD_HEADER_BYTES);
+        byte[] value = new byte[header.getInt(4)];
+        log.read(position + RECORD_HEADER_BYTES + header.getInt(0), value.length).get(value);
+        return value;
+    }
+
+    /**
+     * @return The end of the last complete record before {@code limit}, which is {@code from} when there is none.
+     */
+    private static int scan(Windows log, int from, int limit, RecordConsumer consumer) throws IOException {
+        CRC32 crc = new CRC32();
+        int position = from;
+        while (position + RECORD_HEADER_BYTES <= limit) {
+            ByteBuffer header = log.read(position, RECORD_HEADER_BYTES);
+            int keyLength = header.getInt(0);
+            int valueLength = header.getInt(4);
+            long end = (long) position + RECORD_HEADER_BYTES + keyLength + valueLength;
+            if (keyLength <= 0 || valueLength < 0 || end > limit) {
+                break;
+            }
+
+            ByteBuffer body = log.read(position + RECORD_HEADER_BYTES, keyLength + valueLength);
+            byte[] key = new byte[keyLength];
+            body.get(key);
+            crc.reset();
+            crc.update(key);
+            crc.update(body);
+            if ((int) crc.getValue() != header.getInt(8)) {
+                break;
+            }
+
+            consumer.accept(new String(key, StandardCharsets.UTF_8), position, (int) (end - position));
+            position = (int) end;
+        }
+        return position;
+    }
+
+    /**
+     * @return What the log holds, as of the last record appended to it.
+     */
+    public static PomCacheStatistics statistics(Path cacheDirectory) throws IOException {
+        Path logFile = cacheDirectory.resolve(LOG);
+        if (!Files.exists(logFile)) {
+            return PomCacheStatistics.NONE;
+        }
+        try (FileChannel log = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            Windows mapped = map(log);
+            return mapped == null ? PomCacheStatistics.NONE :
+                    PomCacheEntry.statistics(latest(mapped).values(), log.size(), 0);
+        }
+    }
+
+    /**
+     * Removes the poms written before {@code expireBefore}, then the oldest poms until the rest take up at most
+     * {@code maxBytes}, and compacts the log, unless other JVMs are using it.
+     *
+     * @return What was removed.
+     */
+    public static PomCacheStatistics prune(Path cacheDirectory, long expireBefore, long maxBytes) throws IOException {
+        return maintain(cacheDirectory, expireBefore, maxBytes);
+    }
+
+    /**
+     * Compacts the log, unless other JVMs are using it, freeing the disk space taken by poms that were overwritten.
+     *
+     * @return The disk space that was freed.
+     */
+    public static PomCacheStatistics compact(Path cacheDirectory) throws IOException {
+        return maintain(cacheDirectory, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private static PomCacheStatistics maintain(Path cacheDirectory, long expireBefore, long maxBytes) throws IOException {
+        Path logFile = cacheDirectory.resolve(LOG);
+        if (!Files.exists(logFile)) {
+            return PomCacheStatistics.NONE;
+        }
+        // closing the channel releases the lock
+        try (FileChannel users = FileChannel.open(cacheDirectory.resolve(USERS), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (lock(users, false) == null) {
+                return new PomCacheStatistics(0, 0, Long.MAX_VALUE, 0, 1);
+            }
+            long diskBytes = Files.size(logFile);
+            PomCacheStatistics removed = rewrite(logFile, true, expireBefore, maxBytes);
+            return new PomCacheStatistics(removed.getPoms(), removed.getBytes(), removed.getOldestWrittenAt(),
+                    diskBytes - Files.size(logFile), 0);
+        }
+    }
+
+    /**
+     * Replaces the log with a copy holding the latest record of each pom that is kept. Only the JVM holding the
+     * exclusive lock on the users file may do so.
+     *
+     * @param force Whether to rewrite the log regardless of how much of it can be dropped.
+     * @return What was removed, besides the records of poms that were written again since.
+     */
+    private static PomCacheStatistics rewrite(Path logFile, boolean force, long expireBefore, long maxBytes) throws IOException {
+        if (!Files.exists(logFile)) {
+            return PomCacheStatistics.NONE;
+        }
+        Path rewritten = logFile.resolveSibling(logFile.getFileName() + ".rewritten");
+        PomCacheStatistics removed;
+        try (FileChannel log = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            Windows mapped = map(log);
+            if (mapped == null) {
+                return PomCacheStatistics.NONE;
+            }
+
+            Collection<PomCacheEntry<Integer>> latest = latest(mapped).values();
+            List<PomCacheEntry<Integer>> pruned = PomCacheEntry.toPrune(latest, expireBefore, maxBytes);
+            removed = PomCacheEntry.statistics(pruned, 0, 0);
+            long kept = PomCacheEntry.statistics(latest, 0, 0).getBytes() - removed.getBytes();
+            if (!force && kept * 2 >= mapped.size() - HEADER_BYTES) {
+                return PomCacheStatistics.NONE;
+            }
+
+            List<PomCacheEntry<Integer>> records = new ArrayList<>(latest);
+            records.removeAll(new HashSet<>(pruned));
+            records.sort(Comparator.comparingInt(record -> record.location));
+            try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = mapped.read(0, HEADER_BYTES);
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (PomCacheEntry<Integer> record : records) {
+                    ByteBuffer buffer = mapped.read(record.location, (int) record.bytes);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+                out.force(true);
+            }
+        }
+        Files.move(rewritten, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return removed;
+    }
+
+    /**
+     * @return The log, or {@code null} when nothing was ever appended to it.
+     */
+    @Nullable
+    private static Windows map(FileChannel log) throws IOException {
+        if (log.size() <= HEADER_BYTES) {
+            return null;
+        }
+        readHeader(log, ByteBuffer.allocate(HEADER_BYTES));
+        return new Windows(log);
+    }
+
+    /**
+     * @return The latest record of each pom, by key.
+     */
+    private static Map<String, PomCacheEntry<Integer>> latest(Windows log) throws IOException {
+        Map<String, PomCacheEntry<Integer>> latest = new HashMap<>();
+        scan(log, HEADER_BYTES, log.size(), (key, position, length) ->
+                latest.put(key, new PomCacheEntry<>(position, writtenAt(log, position), length)));
+        return latest;
+    }
+
+    private static long writtenAt(Windows log, int position) throws IOException {
+        ByteBuffer record = log.read(position, RECORD_HEADER_BYTES);
+        byte[] header = new byte[Math.min(PomCacheSerializer.HEADER_BYTES, record.getInt(4))];
+        log.read(position + RECORD_HEADER_BYTES + record.getInt(0), header.length).get(header);
+        return PomCacheSerializer.writtenAt(header);
+    }
+
+    /**
+     * @return The exclusive lock if no other JVM holds a lock, or the shared lock once no other JVM holds the
+     * exclusive lock.
+     */
+    @Nullable
+    private static FileLock lock(FileChannel channel, boolean shared) throws IOException {
+        try {
+            return shared ? channel.lock(0, Long.MAX_VALUE, true) : channel.tryLock(0, Long.MAX_VALUE, false);
+        } catch (OverlappingFileLockException e) {
+            // held by another class realm of this JVM
+            return null;
+        }
+    }
+
+    private static void closeQuietly(@Nullable FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // released when the JVM exits
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordConsumer {
+        void accept(String key, int position, int length) throws IOException;
+    }
+
+    /**
+     * Reads the log through windows of {@link #WINDOW_BYTES}, each mapped once the log extends beyond it and kept
+     * until the log is closed, so that a log that keeps growing is not mapped again and again. Records at the end of
+     * the log, or spanning two windows, are read from the file instead.
+     */
+    private static final class Windows {
+        private final FileChannel log;
+        private final List<MappedByteBuffer> windows = new ArrayList<>();
+
+        Windows(FileChannel log) {
+            this.log = log;
+        }
+
+        int size() throws IOException {
+            return (int) Math.min(log.size(), MAX_LOG_BYTES);
+        }
+
+        /**
+         * @return The {@code length} bytes of the log at {@code position}.
+         */
+        ByteBuffer read(int position, int length) throws IOException {
+            int window = position / WINDOW_BYTES;
+            int offset = position % WINDOW_BYTES;
+            if (offset + length <= WINDOW_BYTES && map(window)) {
+                ByteBuffer bytes = windows.get(window).duplicate();
+                bytes.position(offset);
+                bytes.limit(offset + length);
+                return bytes.slice();
+            }
+            ByteBuffer bytes = ByteBuffer.allocate(length);
+            while (bytes.hasRemaining()) {
+                if (log.read(bytes, (long) position + bytes.position()) < 0) {
+                    throw new EOFException("The maven pom cache ends within a record");
+                }
+            }
+            bytes.flip();
+            return bytes;
+        }
+
+        /**
+         * @return Whether the window is mapped, which it is once the log extends beyond it.
+         */
+        private boolean map(int window) throws IOException {
+            if (window < windows.size()) {
+                return true;
+            }
+            long size = Math.min(log.size(), MAX_LOG_BYTES);
+            while (windows.size() <= window && (long) (windows.size() + 1) * WINDOW_BYTES <= size) {
+                windows.add(log.map(FileChannel.MapMode.READ_ONLY, (long) windows.size() * WINDOW_BYTES, WINDOW_BYTES));
+            }
+            return window < windows.size();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package org.openrewrite.maven;
 
+import io.micrometer.core.instrument.Metrics;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Profile;
 import org.apache.maven.model.Repository;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -14,6 +16,8 @@ import org.apache.maven.settings.crypto.SettingsDecrypter;
 import org.apache.maven.settings.crypto.SettingsDecryptionRequest;
 import org.apache.maven.settings.crypto.SettingsDecryptionResult;
 import org.openrewrite.ExecutionContext;
+import org.openrewrite.HttpSenderExecutionContextView;
+import org.openrewrite.InMemoryExecutionContext;
 import org.openrewrite.SourceFile;
 import org.openrewrite.internal.ListUtils;
 import org.openrewrite.internal.lang.Nullable;
@@ -28,10 +32,9 @@ import org.openrewrite.marker.Generated;
 import org.openrewrite.marker.GitProvenance;
 import org.openrewrite.marker.Marker;
 import org.openrewrite.marker.ci.BuildEnvironment;
+import org.openrewrite.maven.ParsePlan.SourceKind;
 import org.openrewrite.maven.cache.CompositeMavenPomCache;
-import org.openrewrite.maven.cache.InMemoryMavenPomCache;
 import org.openrewrite.maven.cache.MavenPomCache;
-import org.openrewrite.maven.cache.RocksdbMavenPomCache;
 import org.openrewrite.maven.internal.RawRepositories;
 import org.openrewrite.maven.tree.ProfileActivation;
 import org.openrewrite.style.NamedStyles;
@@ -43,9 +46,15 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -80,77 +89,159 @@ public class MavenMojoProjectParser {
     private final Log logger;
     private final Path baseDir;
     private final boolean pomCacheEnabled;
-    @Nullable
-    private final String pomCacheDirectory;
+    private final PomCacheSettings pomCacheSettings;
+    private final int pomPrefetchThreads;
+    private final boolean dependenciesFromMaven;
     private final boolean skipMavenParsing;
 
     private final BuildTool buildTool;
 
-    private final Collection<String> exclusions;
-    private final Collection<String> plainTextMasks;
+    /**
+     * Compiled once and shared by the resource parsers of every module.
+     */
+    private final GlobMatcher exclusions;
+    private final GlobMatcher plainTextMasks;
     private final int sizeThresholdMb;
     private final MavenSession mavenSession;
     private final SettingsDecrypter settingsDecrypter;
 
+    @Nullable
+    private final SourceFileCache sourceFileCache;
+
+    private final ParsePlan parsePlan;
+
     @SuppressWarnings("BooleanParameter")
     public MavenMojoProjectParser(Log logger, Path baseDir, boolean pomCacheEnabled, @Nullable String pomCacheDirectory, RuntimeInformation runtime, boolean skipMavenParsing, Collection<String> exclusions, Collection<String> plainTextMasks, int sizeThresholdMb, MavenSession session, SettingsDecrypter settingsDecrypter) {
+        this(logger, baseDir, pomCacheEnabled, PomCacheSettings.defaults(pomCacheDirectory), 0, false, runtime, skipMavenParsing, exclusions, plainTextMasks, sizeThresholdMb, session, settingsDecrypter, null, ParsePlan.FULL);
+    }
+
+    @SuppressWarnings("BooleanParameter")
+    public MavenMojoProjectParser(Log logger, Path baseDir, boolean pomCacheEnabled, PomCacheSettings pomCacheSettings, int pomPrefetchThreads, boolean dependenciesFromMaven, RuntimeInformation runtime, boolean skipMavenParsing, Collection<String> exclusions, Collection<String> plainTextMasks, int sizeThresholdMb, MavenSession session, SettingsDecrypter settingsDecrypter, @Nullable SourceFileCache sourceFileCache, ParsePlan parsePlan) {
         this.logger = logger;
         this.baseDir = baseDir;
         this.pomCacheEnabled = pomCacheEnabled;
-        this.pomCacheDirectory = pomCacheDirectory;
+        this.pomCacheSettings = pomCacheSettings;
+        this.pomPrefetchThreads = pomPrefetchThreads;
+        this.dependenciesFromMaven = dependenciesFromMaven;
         this.skipMavenParsing = skipMavenParsing;
         this.buildTool = new BuildTool(randomId(), BuildTool.Type.Maven, runtime.getMavenVersion());
-        this.exclusions = exclusions;
-        this.plainTextMasks = plainTextMasks;
+        this.exclusions = GlobMatcher.compile(baseDir.getFileSystem(), exclusions);
+        this.plainTextMasks = GlobMatcher.compile(baseDir.getFileSystem(), plainTextMasks);
         this.sizeThresholdMb = sizeThresholdMb;
         this.mavenSession = session;
         this.settingsDecrypter = settingsDecrypter;
+        this.sourceFileCache = sourceFileCache;
+        this.parsePlan = parsePlan;
+    }
+
+    /**
+     * Parse the source files of several maven projects, using up to {@code parseThreads} workers. The source files are
+     * returned grouped by project, in the order of {@code mavenProjects}, regardless of which project finishes first.
+     */
+    public List<SourceFile> listSourceFiles(List<MavenProject> mavenProjects, List<NamedStyles> styles,
+            ExecutionContext ctx, int parseThreads) throws DependencyResolutionRequiredException, MojoExecutionException {
+        sessionProvenance();
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        if (parseThreads <= 1 || mavenProjects.size() <= 1) {
+            for (MavenProject mavenProject : mavenProjects) {
+                sourceFiles.addAll(listSourceFiles(mavenProject, styles, ctx));
+            }
+            return sourceFiles;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parseThreads, mavenProjects.size()), r -> {
+            Thread thread = new Thread(r, "rewrite-parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Rewrite caches the types of a source before it has filled them in, so a type cache cannot be shared by threads
+        // parsing at the same time. Each thread parses with its own copy of the shared cache instead, which holds the
+        // types of the projects parsed before. The copies cannot be merged back, so types are shared by the projects a
+        // thread parses one after the other, but not between threads.
+        ThreadLocal<JavaTypeCache> threadTypeCache = ThreadLocal.withInitial(typeCache::clone);
+        try {
+            List<Future<List<SourceFile>>> parsedProjects = new ArrayList<>(mavenProjects.size());
+            for (MavenProject mavenProject : mavenProjects) {
+                // The source encoding is set on the context per project, so each project gets a context of its own.
+                ExecutionContext projectCtx = new ProjectExecutionContext(ctx);
+                parsedProjects.add(executor.submit(() -> listSourceFiles(mavenProject, styles, projectCtx, threadTypeCache.get())));
+            }
+            for (Future<List<SourceFile>> parsedProject : parsedProjects) {
+                sourceFiles.addAll(parsedProject.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while parsing source files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DependencyResolutionRequiredException) {
+                throw (DependencyResolutionRequiredException) cause;
+            } else if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new MojoExecutionException("Unable to parse source files", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Recipes resolve poms through the settings and pom cache of the context they are run with.
+        if (!skipMavenParsing) {
+            configureMavenExecutionContext(ctx);
+        }
+        return sourceFiles;
     }
 
     public List<SourceFile> listSourceFiles(MavenProject mavenProject, List<NamedStyles> styles,
             ExecutionContext ctx) throws DependencyResolutionRequiredException, MojoExecutionException {
+        return listSourceFiles(mavenProject, styles, ctx, typeCache);
+    }
 
-        List<Marker> projectProvenance = generateProvenance(mavenProject);
+    private List<SourceFile> listSourceFiles(MavenProject mavenProject, List<NamedStyles> styles, ExecutionContext ctx,
+            JavaTypeCache projectTypeCache) throws DependencyResolutionRequiredException, MojoExecutionException {
+
+        // The markers shared by every module are computed while the poms are parsed.
+        CompletableFuture<List<Marker>> sessionProvenance = sessionProvenance();
         List<SourceFile> sourceFiles = new ArrayList<>();
         Set<Path> alreadyParsed = new HashSet<>();
 
         // First parse the maven project.
-        logInfo(mavenProject, "Resolving Poms...");
-        Xml.Document maven = parseMaven(mavenProject, projectProvenance, ctx);
+        Xml.Document maven = null;
+        if (parsePlan.parses(SourceKind.MAVEN)) {
+            logInfo(mavenProject, "Resolving Poms...");
+            maven = parseMaven(mavenProject, Collections.emptyList(), ctx);
+        }
+        List<Marker> projectProvenance = generateProvenance(mavenProject, sessionProvenance.join());
         if (maven != null) {
-            sourceFiles.add(maven);
+            sourceFiles.add(MavenMojoProjectParser.<Xml.Document>addProvenance(projectProvenance, null).apply(maven));
             alreadyParsed.add(baseDir.resolve(maven.getSourcePath()));
         }
+        if (!parsePlan.parsesProjectFiles()) {
+            // Nothing else can be changed by the active recipes, so the project directory is not even walked.
+            return sourceFiles;
+        }
 
         Object mavenSourceEncoding = mavenProject.getProperties().get("project.build.sourceEncoding");
         if (mavenSourceEncoding != null) {
             ParsingExecutionContextView.view(ctx).setCharset(Charset.forName(mavenSourceEncoding.toString()));
         }
         JavaParser javaParser = JavaParser.fromJavaVersion()
-                .typeCache(typeCache)
+                // Types of sources parsed without a classpath are incomplete, and must not be shared with
+                // parsers attributing types.
+                .typeCache(parsePlan.isTypeAttribution() ? projectTypeCache : new JavaTypeCache())
                 .logCompilationWarningsAndErrors(false)
                 .build();
-        ResourceParser rp = new ResourceParser(baseDir, logger, exclusions, plainTextMasks, sizeThresholdMb, pathsToOtherMavenProjects(mavenProject));
+        ResourceParser rp = new ResourceParser(baseDir, logger, exclusions, plainTextMasks, sizeThresholdMb, pathsToOtherMavenProjects(mavenProject), sourceFileCache, parsePlan);
+        ProjectFileInventory inventory = inventory(mavenProject, rp);
 
-        sourceFiles.addAll(processMainSources(mavenProject, javaParser, rp, projectProvenance, alreadyParsed, styles, ctx));
-        sourceFiles.addAll(processTestSources(mavenProject, javaParser, rp, projectProvenance, alreadyParsed, styles, ctx));
-        Collection<PathMatcher> exclusionMatchers = exclusions.stream()
-                .map(pattern -> baseDir.getFileSystem().getPathMatcher("glob:" + pattern))
-                .collect(toList());
-        sourceFiles = ListUtils.map(sourceFiles, sourceFile -> {
-            if (sourceFile instanceof J.CompilationUnit) {
-                for (PathMatcher excluded : exclusionMatchers) {
-                    if (excluded.matches(sourceFile.getSourcePath())) {
-                        return null;
-                    }
-                }
-            }
-            return sourceFile;
-        });
+        sourceFiles.addAll(processMainSources(mavenProject, javaParser, rp, inventory, projectProvenance, alreadyParsed, styles, ctx));
+        sourceFiles.addAll(processTestSources(mavenProject, javaParser, rp, inventory, projectProvenance, alreadyParsed, styles, ctx));
         //Collect any additional files that were not parsed above.
         List<SourceFile> parsedResourceFiles = ListUtils.map(
-                rp.parse(mavenProject.getBasedir().toPath(), alreadyParsed),
-                addProvenance(baseDir, projectProvenance, null)
+                rp.parse(inventory, mavenProject.getBasedir().toPath(), alreadyParsed),
+                addProvenance(projectProvenance, null)
         );
         logDebug(mavenProject, "Parsed " + parsedResourceFiles.size() + " additional files found within the project.");
         sourceFiles.addAll(parsedResourceFiles);
@@ -158,7 +249,24 @@ public class MavenMojoProjectParser {
         return sourceFiles;
     }
 
-    private List<Marker> generateProvenance(MavenProject mavenProject) {
+    /**
+     * The build environment and git provenance, which are the same for every module of the session. They are computed
+     * once, on a thread of their own, as reading the git repository takes a while, e.g. when it has many refs.
+     */
+    private CompletableFuture<List<Marker>> sessionProvenance() {
+        return MavenSessionCache.computeIfAbsent(mavenSession, "sessionProvenance:" + baseDir, () -> CompletableFuture.supplyAsync(() -> {
+            BuildEnvironment buildEnvironment = BuildEnvironment.build(System::getenv);
+            return Stream.<Marker>of(buildEnvironment, gitProvenance(baseDir, buildEnvironment))
+                    .filter(Objects::nonNull)
+                    .collect(toList());
+        }, r -> {
+            Thread thread = new Thread(r, "rewrite-provenance");
+            thread.setDaemon(true);
+            thread.start();
+        }));
+    }
+
+    private List<Marker> generateProvenance(MavenProject mavenProject, List<Marker> sessionProvenance) {
 
         String javaRuntimeVersion = System.getProperty("java.runtime.version");
         String javaVendor = System.getProperty("java.vm.vendor");
@@ -174,18 +282,14 @@ public class MavenMojoProjectParser {
             targetCompatibility = propertiesTargetCompatibility;
         }
 
-        BuildEnvironment buildEnvironment = BuildEnvironment.build(System::getenv);
-        return Stream.of(
-                buildEnvironment,
-                gitProvenance(baseDir, buildEnvironment),
+        return Stream.concat(sessionProvenance.stream(), Stream.of(
                 buildTool,
                 new JavaVersion(randomId(), javaRuntimeVersion, javaVendor, sourceCompatibility, targetCompatibility),
                 new JavaProject(randomId(), mavenProject.getName(), new JavaProject.Publication(
                         mavenProject.getGroupId(),
                         mavenProject.getArtifactId(),
                         mavenProject.getVersion()
-                )))
-                .filter(Objects::nonNull)
+                ))))
                 .collect(toList());
     }
 
@@ -193,6 +297,7 @@ public class MavenMojoProjectParser {
             MavenProject mavenProject,
             JavaParser javaParser,
             ResourceParser resourceParser,
+            ProjectFileInventory inventory,
             List<Marker> projectProvenance,
             Set<Path> alreadyParsed,
             List<NamedStyles> styles,
@@ -200,37 +305,42 @@ public class MavenMojoProjectParser {
 
         // Some annotation processors output generated sources to the /target directory. These are added for parsing but
         // should be filtered out of the final SourceFile list.
-        List<Path> generatedSourcePaths = listJavaSources(mavenProject.getBuild().getDirectory());
+        List<Path> generatedSourcePaths = listJavaSources(inventory, mavenProject.getBuild().getDirectory());
         List<Path> mainJavaSources = Stream.concat(
                 generatedSourcePaths.stream(),
-                listJavaSources(mavenProject.getBuild().getSourceDirectory()).stream()
+                listJavaSources(inventory, mavenProject.getBuild().getSourceDirectory()).stream()
         ).collect(toList());
 
+        // Java sources count as parsed even when they are not, so that they are not parsed as anything else.
         alreadyParsed.addAll(mainJavaSources);
 
-        logInfo(mavenProject, "Parsing Source Files");
-        List<Path> dependencies = mavenProject.getCompileClasspathElements().stream()
-                .distinct()
-                .map(Paths::get)
-                .collect(toList());
-        javaParser.setClasspath(dependencies);
+        javaParser.setClasspath(classpath(mavenProject.getCompileClasspathElements()));
         javaParser.setSourceSet("main");
 
-        // JavaParser will add SourceSet Markers to any Java SourceFile, so only adding the project provenance info to
-        // java source.
-        List<J.CompilationUnit> parsedJava = ListUtils.map(applyStyles(javaParser.parse(mainJavaSources, baseDir, ctx), styles),
-                addProvenance(baseDir, projectProvenance, generatedSourcePaths));
-        logDebug(mavenProject, "Parsed " + parsedJava.size() + " java source files in main scope.");
-
-        //Filter out any generated source files from the returned list, as we do not want to apply the recipe to the
-        //generated files.
-        Path buildDirectory = baseDir.relativize(Paths.get(mavenProject.getBuild().getDirectory()));
-        List<SourceFile> sourceFiles =
-                parsedJava.stream().filter(s -> !s.getSourcePath().startsWith(buildDirectory)).collect(Collectors.toList());
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        if (parsePlan.parses(SourceKind.JAVA)) {
+            logInfo(mavenProject, "Parsing Source Files");
+            // JavaParser will add SourceSet Markers to any Java SourceFile, so only adding the project provenance info to
+            // java source.
+            // Excluded sources, and those the recipes cannot change, are not parsed at all. Their types are still
+            // attributed from the compiled classes, which are part of the classpath.
+            // Generated sources are looked up by source path for every parsed file, so they are indexed by it once.
+            Set<Path> generatedSources = generatedSourcePaths.stream()
+                    .map(baseDir::relativize)
+                    .collect(Collectors.toSet());
+            List<J.CompilationUnit> parsedJava = addStyles(javaParser.parse(omitExclusions(mainJavaSources), baseDir, ctx),
+                    styles, projectProvenance, generatedSources);
+            logDebug(mavenProject, "Parsed " + parsedJava.size() + " java source files in main scope.");
+
+            //Filter out any generated source files from the returned list, as we do not want to apply the recipe to the
+            //generated files.
+            Path buildDirectory = baseDir.relativize(Paths.get(mavenProject.getBuild().getDirectory()));
+            parsedJava.stream().filter(s -> !s.getSourcePath().startsWith(buildDirectory)).forEach(sourceFiles::add);
+        }
 
         List<SourceFile> parsedResourceFiles = ListUtils.map(
-                resourceParser.parse(mavenProject.getBasedir().toPath().resolve("src/main/resources"), alreadyParsed),
-                addProvenance(baseDir, ListUtils.concat(projectProvenance, javaParser.getSourceSet(ctx)), null));
+                resourceParser.parse(inventory, mavenProject.getBasedir().toPath().resolve("src/main/resources"), alreadyParsed),
+                addProvenance(ListUtils.concat(projectProvenance, javaParser.getSourceSet(ctx)), null));
 
         logDebug(mavenProject, "Parsed " + parsedResourceFiles.size() + " resource files in main scope.");
         // Any resources parsed from "main/resources" should also have the main source set added to them.
@@ -242,35 +352,32 @@ public class MavenMojoProjectParser {
             MavenProject mavenProject,
             JavaParser javaParser,
             ResourceParser resourceParser,
+            ProjectFileInventory inventory,
             List<Marker> projectProvenance,
             Set<Path> alreadyParsed,
             List<NamedStyles> styles,
             ExecutionContext ctx) throws DependencyResolutionRequiredException, MojoExecutionException {
 
-        List<Path> testDependencies = mavenProject.getTestClasspathElements().stream()
-                .distinct()
-                .map(Paths::get)
-                .collect(toList());
-
-        javaParser.setClasspath(testDependencies);
+        javaParser.setClasspath(classpath(mavenProject.getTestClasspathElements()));
         javaParser.setSourceSet("test");
 
         // JavaParser will add SourceSet Markers to any Java SourceFile, so only adding the project provenance info to
         // java source.
-        List<Path> testJavaSources = listJavaSources(mavenProject.getBuild().getTestSourceDirectory());
+        List<Path> testJavaSources = listJavaSources(inventory, mavenProject.getBuild().getTestSourceDirectory());
         alreadyParsed.addAll(testJavaSources);
 
-        List<J.CompilationUnit> parsedJava = ListUtils.map(
-                applyStyles(javaParser.parse(testJavaSources, baseDir, ctx), styles),
-                addProvenance(baseDir, projectProvenance, null));
-
-        logDebug(mavenProject, "Parsed " + parsedJava.size() + " java source files in test scope.");
-        List<SourceFile> sourceFiles = new ArrayList<>(parsedJava);
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        if (parsePlan.parses(SourceKind.JAVA)) {
+            List<J.CompilationUnit> parsedJava = addStyles(javaParser.parse(omitExclusions(testJavaSources), baseDir, ctx),
+                    styles, projectProvenance, null);
+            logDebug(mavenProject, "Parsed " + parsedJava.size() + " java source files in test scope.");
+            sourceFiles.addAll(parsedJava);
+        }
 
         // Any resources parsed from "test/resources" should also have the test source set added to them.
         List<SourceFile> parsedResourceFiles = ListUtils.map(
-                resourceParser.parse(mavenProject.getBasedir().toPath().resolve("src/test/resources"), alreadyParsed),
-                addProvenance(baseDir, ListUtils.concat(projectProvenance, javaParser.getSourceSet(ctx)), null)
+                resourceParser.parse(inventory, mavenProject.getBasedir().toPath().resolve("src/test/resources"), alreadyParsed),
+                addProvenance(ListUtils.concat(projectProvenance, javaParser.getSourceSet(ctx)), null)
         );
         logDebug(mavenProject, "Parsed " + parsedResourceFiles.size() + " resource files in test scope.");
         sourceFiles.addAll(parsedResourceFiles);
@@ -279,34 +386,147 @@ public class MavenMojoProjectParser {
 
     @Nullable
     public Xml.Document parseMaven(MavenProject mavenProject, List<Marker> projectProvenance, ExecutionContext ctx) {
-        J.clearCaches();
+        // The template cache is cleared of what earlier sessions of the JVM left in it, and then kept for every module.
+        MavenSessionCache.computeIfAbsent(mavenSession, "clearedCaches", () -> {
+            J.clearCaches();
+            return Boolean.TRUE;
+        });
         if (skipMavenParsing) {
             logger.info("Skipping Maven parsing...");
             return null;
         }
 
-        Set<Path> allPoms = collectPoms(mavenProject, new HashSet<>());
-        mavenSession.getProjectDependencyGraph().getUpstreamProjects(mavenProject, true).forEach(p -> collectPoms(p, allPoms));
-        MavenParser.Builder mavenParserBuilder = MavenParser.builder().mavenConfig(baseDir.resolve(".mvn/maven.config"));
+        configureMavenExecutionContext(ctx);
+        List<String> activeProfiles = mavenProject.getActiveProfiles().stream().map(Profile::getId).collect(Collectors.toList());
 
-        MavenSettings settings = buildSettings();
-        MavenExecutionContextView mavenExecutionContext = MavenExecutionContextView.view(ctx);
-        mavenExecutionContext.setMavenSettings(settings);
+        // Every pom of the reactor is parsed and resolved once per session, for each distinct set of active profiles,
+        // and again whenever a pom was written. It is parsed with a context of its own rather than that of the first
+        // module asking for it, as the documents are shared by every module.
+        int reactorGeneration = reactorGeneration(mavenSession).get();
+        Map<Path, Xml.Document> reactorPoms = MavenSessionCache.computeIfAbsent(mavenSession, "reactorPoms:" + reactorGeneration + activeProfiles, () -> {
+            ExecutionContext reactorCtx = new InMemoryExecutionContext(t -> {
+                logger.warn(t.getMessage());
+                logger.debug(t);
+            });
+            configureMavenExecutionContext(reactorCtx);
+            Set<Path> allPoms = reactorPoms();
+            prefetchPoms(mavenProject, allPoms, reactorCtx);
+            return parsePoms(mavenProject, allPoms, activeProfiles, reactorCtx);
+        });
 
-        if (pomCacheEnabled) {
-            //The default pom cache is enabled as a two-layer cache L1 == in-memory and L2 == RocksDb
-            //If the flag is set to false, only the default, in-memory cache is used.
-            mavenExecutionContext.setPomCache(getPomCache(pomCacheDirectory, logger));
+        Xml.Document maven = reactorPoms.get(pomPath(mavenProject));
+        if (maven == null) {
+            // The project is not part of the reactor, so resolve it together with the poms it is related to.
+            Set<Path> allPoms = collectPoms(mavenProject, new HashSet<>());
+            mavenSession.getProjectDependencyGraph().getUpstreamProjects(mavenProject, true).forEach(p -> collectPoms(p, allPoms));
+            maven = parsePoms(mavenProject, allPoms, activeProfiles, ctx).get(pomPath(mavenProject));
+        }
+        if (maven == null) {
+            logError(mavenProject, "Parse resulted in no Maven source files. Maven Project File '" + mavenProject.getFile().toPath() + "'");
+            return null;
         }
 
-        List<String> activeProfiles = mavenProject.getActiveProfiles().stream().map(Profile::getId).collect(Collectors.toList());
-        if (!activeProfiles.isEmpty()) {
-            mavenParserBuilder.activeProfiles(activeProfiles.toArray(new String[]{}));
+        return MavenMojoProjectParser.<Xml.Document>addProvenance(projectProvenance, null).apply(maven);
+    }
+
+    /**
+     * @return The poms of the projects of the session with those of their parents and children. When only some of the
+     * reactor's projects are built, e.g. with {@code -pl}, only the poms of those projects, of their parents and of
+     * the projects of the reactor they depend on.
+     */
+    Set<Path> reactorPoms() {
+        Set<Path> poms = new LinkedHashSet<>();
+        List<MavenProject> allProjects = mavenSession.getAllProjects();
+        if (allProjects == null || allProjects.size() <= mavenSession.getProjects().size()) {
+            mavenSession.getProjects().forEach(p -> collectPoms(p, poms));
+            return poms;
+        }
+
+        Map<String, MavenProject> reactor = new HashMap<>();
+        for (MavenProject project : allProjects) {
+            reactor.put(project.getGroupId() + ':' + project.getArtifactId() + ':' + project.getVersion(), project);
+        }
+        Deque<MavenProject> referenced = new ArrayDeque<>(mavenSession.getProjects());
+        while (!referenced.isEmpty()) {
+            MavenProject project = referenced.pop();
+            if (project.getFile() == null || !poms.add(pomPath(project))) {
+                continue;
+            }
+            if (project.getParent() != null) {
+                referenced.push(project.getParent());
+            }
+            List<Dependency> dependencies = new ArrayList<>(project.getDependencies());
+            if (project.getDependencyManagement() != null) {
+                dependencies.addAll(project.getDependencyManagement().getDependencies());
+            }
+            // Imported boms are only found in the model as it was written.
+            if (project.getOriginalModel() != null && project.getOriginalModel().getDependencyManagement() != null) {
+                dependencies.addAll(project.getOriginalModel().getDependencyManagement().getDependencies());
+            }
+            for (Dependency dependency : dependencies) {
+                MavenProject dependencyProject = reactor.get(dependency.getGroupId() + ':' + dependency.getArtifactId() + ':' + dependency.getVersion());
+                if (dependencyProject != null) {
+                    referenced.push(dependencyProject);
+                }
+            }
         }
+        return poms;
+    }
 
-        List<Xml.Document> mavens = mavenParserBuilder
-                .build()
-                .parse(allPoms, baseDir, ctx);
+    /**
+     * Tells the modules parsed after a pom was written, e.g. by rewrite:run per submodule, to parse the reactor again
+     * rather than reuse documents parsed from the poms as they were.
+     */
+    static void reactorPomsChanged(MavenSession mavenSession) {
+        reactorGeneration(mavenSession).incrementAndGet();
+    }
+
+    private static AtomicInteger reactorGeneration(MavenSession mavenSession) {
+        return MavenSessionCache.computeIfAbsent(mavenSession, "reactorGeneration", AtomicInteger::new);
+    }
+
+    /**
+     * Downloads the parents and boms of the reactor into the pom cache, once per session.
+     */
+    private void prefetchPoms(MavenProject mavenProject, Set<Path> allPoms, ExecutionContext ctx) {
+        if (pomPrefetchThreads <= 0) {
+            return;
+        }
+        if (mavenSession.isOffline()) {
+            logDebug(mavenProject, "Not prefetching poms, maven is offline.");
+            return;
+        }
+        MavenSessionCache.computeIfAbsent(mavenSession, "pomPrefetch", () -> {
+            long start = System.nanoTime();
+            try {
+                int prefetched = new PomPrefetcher(PomPrefetcher.readProjectPoms(allPoms), ctx, pomPrefetchThreads).prefetch();
+                logDebug(mavenProject, "Prefetched " + prefetched + " parent and bom poms in " +
+                                       TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Boolean.TRUE;
+        });
+    }
+
+    private Map<Path, Xml.Document> parsePoms(MavenProject mavenProject, Set<Path> allPoms, List<String> activeProfiles, ExecutionContext ctx) {
+        List<Xml.Document> mavens;
+        if (dependenciesFromMaven) {
+            Map<Path, MavenProject> reactorProjects = new HashMap<>();
+            for (MavenProject project : mavenSession.getAllProjects() == null ? mavenSession.getProjects() : mavenSession.getAllProjects()) {
+                reactorProjects.put(pomPath(project), project);
+            }
+            reactorProjects.put(pomPath(mavenProject), mavenProject);
+            mavens = new ReactorPomParser(activeProfiles, reactorProjects).parse(allPoms, baseDir, ctx);
+        } else {
+            MavenParser.Builder mavenParserBuilder = MavenParser.builder().mavenConfig(baseDir.resolve(".mvn/maven.config"));
+            if (!activeProfiles.isEmpty()) {
+                mavenParserBuilder.activeProfiles(activeProfiles.toArray(new String[]{}));
+            }
+            mavens = mavenParserBuilder
+                    .build()
+                    .parse(allPoms, baseDir, ctx);
+        }
 
         if (logger.isDebugEnabled()) {
             logDebug(mavenProject, "Base Directory : '" + baseDir + "'");
@@ -326,19 +546,30 @@ public class MavenMojoProjectParser {
             }
         }
 
-        Xml.Document maven = mavens.stream()
-                .filter(o -> pomPath(mavenProject).equals(baseDir.resolve(o.getSourcePath())))
-                .findFirst().orElse(null);
-        if (maven == null) {
-            logError(mavenProject, "Parse resulted in no Maven source files. Maven Project File '" + mavenProject.getFile().toPath() + "'");
-            return null;
+        Map<Path, Xml.Document> mavensByPath = new HashMap<>();
+        for (Xml.Document maven : mavens) {
+            mavensByPath.put(baseDir.resolve(maven.getSourcePath()), maven);
         }
+        return mavensByPath;
+    }
 
-        for (Marker marker : projectProvenance) {
-            maven = maven.withMarkers(maven.getMarkers().addIfAbsent(marker));
-        }
+    private void configureMavenExecutionContext(ExecutionContext ctx) {
+        // Built once per session, as decrypting the passwords of many servers for every module adds up.
+        MavenSettings settings = MavenSessionCache.computeIfAbsent(mavenSession, "mavenSettings", this::buildSettings);
+        MavenExecutionContextView mavenExecutionContext = MavenExecutionContextView.view(ctx);
+        mavenExecutionContext.setMavenSettings(settings);
 
-        return maven;
+        // Requests that failed are failed again without waiting on the network for the rest of the session, and none
+        // are sent to remote repositories when maven is offline.
+        HttpSenderExecutionContextView httpSenderContext = HttpSenderExecutionContextView.view(ctx);
+        httpSenderContext.setHttpSender(MavenSessionCache.computeIfAbsent(mavenSession, "httpSender",
+                () -> new FailFastHttpSender(httpSenderContext.getHttpSender(), mavenSession.isOffline())));
+
+        if (pomCacheEnabled) {
+            //The default pom cache is enabled as a two-layer cache L1 == in-memory and L2 == RocksDb
+            //If the flag is set to false, only the default, in-memory cache is used.
+            mavenExecutionContext.setPomCache(getPomCache(pomCacheSettings, logger));
+        }
     }
 
     /**
@@ -381,36 +612,72 @@ public class MavenMojoProjectParser {
         return pomPath;
     }
 
-    private static MavenPomCache getPomCache(@Nullable String pomCacheDirectory, Log logger) {
+    private static synchronized MavenPomCache getPomCache(PomCacheSettings settings, Log logger) {
         if (pomCache == null) {
-            if (isJvm64Bit()) {
-                try {
-                    if (pomCacheDirectory == null) {
-                        //Default directory in the RocksdbMavenPomCache is ".rewrite-cache"
-                        pomCache = new CompositeMavenPomCache(
-                                new InMemoryMavenPomCache(),
-                                new RocksdbMavenPomCache(Paths.get(System.getProperty("user.home")))
-                        );
-                    } else {
-                        pomCache = new CompositeMavenPomCache(
-                                new InMemoryMavenPomCache(),
-                                new RocksdbMavenPomCache(Paths.get(pomCacheDirectory))
-                        );
-                    }
-                } catch (Exception e) {
-                    logger.warn("Unable to initialize RocksdbMavenPomCache, falling back to InMemoryMavenPomCache");
-                    logger.debug(e);
-                }
-            } else {
-                logger.warn("RocksdbMavenPomCache is not supported on 32-bit JVM. falling back to InMemoryMavenPomCache");
+            MavenPomCache diskCache = null;
+            if (settings.getBackend() == PomCacheSettings.Backend.ROCKSDB) {
+                diskCache = getRocksdbPomCache(settings, logger);
             }
-        }
-        if (pomCache == null) {
-            pomCache = new InMemoryMavenPomCache();
+            if (diskCache == null) {
+                diskCache = getMappedFilePomCache(settings, logger);
+            }
+            Path seed = settings.getSeed();
+            if (seed != null && diskCache instanceof RawPomCache) {
+                seedPomCache((RawPomCache) diskCache, settings.getCacheDirectory(), seed, logger);
+            }
+            MavenPomCache memoryCache = BoundedInMemoryPomCache.create(settings.getMaxEntries(), Metrics.globalRegistry);
+            pomCache = diskCache == null ? memoryCache : new CompositeMavenPomCache(memoryCache, diskCache);
         }
         return pomCache;
     }
 
+    @Nullable
+    private static MavenPomCache getRocksdbPomCache(PomCacheSettings settings, Log logger) {
+        if (!isJvm64Bit()) {
+            logger.warn("RocksdbMavenPomCache is not supported on 32-bit JVM. falling back to a memory-mapped pom cache");
+            return null;
+        }
+        try {
+            ShardedRocksdbMavenPomCache rocksdbCache = new ShardedRocksdbMavenPomCache(settings.getCacheDirectory(),
+                    ShardedRocksdbMavenPomCache.DEFAULT_SHARDS, settings.getMissingTtl());
+            Runtime.getRuntime().addShutdownHook(new Thread(rocksdbCache::close));
+            if (!rocksdbCache.isWritable()) {
+                logger.info("Every shard of the maven pom cache is in use by other builds, newly downloaded poms are not cached on disk");
+            }
+            return rocksdbCache;
+        } catch (Exception | LinkageError e) {
+            // the native library fails to load with an error rather than an exception
+            logger.warn("Unable to initialize the RocksDB maven pom cache, falling back to a memory-mapped pom cache");
+            logger.debug(e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static MavenPomCache getMappedFilePomCache(PomCacheSettings settings, Log logger) {
+        try {
+            MappedFileMavenPomCache mappedFileCache = new MappedFileMavenPomCache(settings.getCacheDirectory(), settings.getMissingTtl());
+            Runtime.getRuntime().addShutdownHook(new Thread(mappedFileCache::close));
+            return mappedFileCache;
+        } catch (Exception e) {
+            logger.warn("Unable to initialize the memory-mapped maven pom cache, falling back to an in-memory pom cache");
+            logger.debug(e);
+            return null;
+        }
+    }
+
+    private static void seedPomCache(RawPomCache cache, Path cacheDirectory, Path bundle, Log logger) {
+        try {
+            long imported = PomCacheBundle.seed(cache, cacheDirectory, bundle);
+            if (imported >= 0) {
+                logger.info(String.format("Seeded the maven pom cache with %d poms from %s", imported, bundle));
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to seed the maven pom cache from " + bundle + ": " + e.getMessage());
+            logger.debug(e);
+        }
+    }
+
     private static boolean isJvm64Bit() {
         //It appears most JVM vendors set this property. Only return false if the
         //property has been set AND it is set to 32.
@@ -491,27 +758,89 @@ public class MavenMojoProjectParser {
                 .collect(Collectors.toSet());
     }
 
-    private List<J.CompilationUnit> applyStyles(List<J.CompilationUnit> sourceFiles, List<NamedStyles> styles) {
+    /**
+     * Add the styles, merged with those detected from the source files, together with the provenance markers.
+     */
+    private List<J.CompilationUnit> addStyles(List<J.CompilationUnit> sourceFiles, List<NamedStyles> styles,
+                                              List<Marker> provenance, @Nullable Set<Path> generatedSources) {
         Autodetect autodetect = Autodetect.detect(sourceFiles);
         NamedStyles merged = NamedStyles.merge(ListUtils.concat(styles, autodetect));
-        if(merged == null) {
-            return sourceFiles;
-        }
-        return map(sourceFiles, cu -> cu.withMarkers(cu.getMarkers().add(merged)));
+        return map(sourceFiles, addProvenance(merged == null ? provenance : ListUtils.concat(merged, provenance), generatedSources));
     }
 
-    private static <S extends SourceFile> UnaryOperator<S> addProvenance(Path baseDir, List<Marker> provenance, @Nullable Collection<Path> generatedSources) {
+    /**
+     * All markers missing from a source file are added at once, so that each source file is copied once rather than
+     * once per marker.
+     *
+     * @param generatedSources The source paths, relative to the base directory, of files to mark as generated.
+     */
+    private static <S extends SourceFile> UnaryOperator<S> addProvenance(List<Marker> provenance, @Nullable Set<Path> generatedSources) {
         return s -> {
+            List<Marker> markers = s.getMarkers().getMarkers();
+            List<Marker> added = new ArrayList<>(provenance.size() + 1);
             for (Marker marker : provenance) {
-                s = s.withMarkers(s.getMarkers().addIfAbsent(marker));
+                if (!markers.contains(marker)) {
+                    added.add(marker);
+                }
             }
-            if (generatedSources != null && generatedSources.contains(baseDir.resolve(s.getSourcePath()))) {
-                s = s.withMarkers(s.getMarkers().addIfAbsent(new Generated(randomId())));
+            if (generatedSources != null && generatedSources.contains(s.getSourcePath())) {
+                added.add(new Generated(randomId()));
             }
-            return s;
+            if (added.isEmpty()) {
+                return s;
+            }
+            return s.withMarkers(s.getMarkers().withMarkers(ListUtils.concatAll(markers, added)));
         };
     }
 
+    private List<Path> omitExclusions(List<Path> sourcePaths) {
+        if (exclusions.isEmpty() && !parsePlan.isPrefiltered()) {
+            return sourcePaths;
+        }
+        return sourcePaths.stream()
+                .filter(sourcePath -> exclusions.isEmpty() || !exclusions.matches(baseDir.relativize(sourcePath)))
+                .filter(parsePlan::mayChange)
+                .collect(toList());
+    }
+
+    private List<Path> classpath(List<String> classpathElements) {
+        // also keeps the source set markers of resources from listing the types of the classpath when java sources
+        // are not parsed
+        if (!parsePlan.isTypeAttribution()) {
+            return emptyList();
+        }
+        return classpathElements.stream()
+                .distinct()
+                .map(Paths::get)
+                .collect(toList());
+    }
+
+    /**
+     * Walk the project directory once for every source set and resource directory that is parsed from it.
+     */
+    private static ProjectFileInventory inventory(MavenProject mavenProject, ResourceParser resourceParser) throws MojoExecutionException {
+        List<Path> javaSourceDirectories = Stream.of(
+                        mavenProject.getBuild().getDirectory(),
+                        mavenProject.getBuild().getSourceDirectory(),
+                        mavenProject.getBuild().getTestSourceDirectory())
+                .filter(Objects::nonNull)
+                .map(Paths::get)
+                .collect(toList());
+        try {
+            return resourceParser.inventory(mavenProject.getBasedir().toPath(), javaSourceDirectories);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to list project files", e);
+        }
+    }
+
+    private static List<Path> listJavaSources(ProjectFileInventory inventory, String sourceDirectory) throws MojoExecutionException {
+        Path sourceRoot = Paths.get(sourceDirectory);
+        if (inventory.containsJavaSources(sourceRoot)) {
+            return inventory.javaSources(sourceRoot);
+        }
+        return listJavaSources(sourceDirectory);
+    }
+
     private static List<Path> listJavaSources(String sourceDirectory) throws MojoExecutionException {
         File sourceDirectoryFile = new File(sourceDirectory);
         if (!sourceDirectoryFile.exists()) {
@@ -544,6 +873,7 @@ public class MavenMojoProjectParser {
         return null;
     }
 
+
     private void logError(MavenProject mavenProject, String message) {
         logger.error("Project [" + mavenProject.getName() + "] " + message);
     }
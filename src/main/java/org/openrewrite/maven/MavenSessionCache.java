@@ -0,0 +1,92 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds values that are expensive to compute and can be shared by every rewrite mojo execution of a maven session,
+ * e.g. the executions of each module when running per submodule, or the modules of a multithreaded build.
+ * <p>
+ * Values are kept in the data of the repository session, so they are discarded together with the maven session
+ * rather than living as long as the plugin's class realm.
+ */
+final class MavenSessionCache {
+
+    private MavenSessionCache() {
+    }
+
+    /**
+     * Returns the value stored under {@code key} for this session, computing it first if it is absent. Concurrent
+     * callers asking for the same key wait for a single computation instead of each computing the value.
+     */
+    static <T> T computeIfAbsent(MavenSession session, String key, Supplier<T> valueSupplier) {
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        if (repositorySession == null) {
+            return valueSupplier.get();
+        }
+
+        SessionData data = repositorySession.getData();
+        Memo<T> memo = memo(data, key);
+        return memo.get(valueSupplier);
+    }
+
+    /**
+     * Like {@link #computeIfAbsent(MavenSession, String, Supplier)}, for values whose computation can fail the build.
+     * A computation that failed is tried again by the next caller.
+     */
+    static <T> T computeIfAbsentOrThrow(MavenSession session, String key, MojoSupplier<T> valueSupplier) throws MojoExecutionException {
+        try {
+            return computeIfAbsent(session, key, () -> {
+                try {
+                    return valueSupplier.get();
+                } catch (MojoExecutionException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    interface MojoSupplier<T> {
+        T get() throws MojoExecutionException;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Memo<T> memo(SessionData data, String key) {
+        String memoKey = memoKey(key);
+        Object memo = data.get(memoKey);
+        if (memo == null) {
+            Memo<T> newMemo = new Memo<>();
+            if (data.set(memoKey, null, newMemo)) {
+                return newMemo;
+            }
+            memo = data.get(memoKey);
+        }
+        return (Memo<T>) memo;
+    }
+
+    private static String memoKey(String key) {
+        return MavenSessionCache.class.getName() + "." + key;
+    }
+
+    private static final class Memo<T> {
+        @Nullable
+        private T value;
+
+        synchronized T get(Supplier<T> valueSupplier) {
+            if (value == null) {
+                value = valueSupplier.get();
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.openrewrite.maven;
+
+import org.openrewrite.Recipe;
+import org.openrewrite.hcl.HclVisitor;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaVisitor;
+import org.openrewrite.json.JsonVisitor;
+import org.openrewrite.properties.PropertiesVisitor;
+import org.openrewrite.protobuf.ProtoVisitor;
+import org.openrewrite.xml.XmlVisitor;
+import org.openrewrite.yaml.YamlVisitor;
+
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.*;
+
+/**
+ * What parsing has to provide for the active recipes to run, so that nothing they do not need is paid for: the kinds
+ * of source files they can change, whether java sources need their types attributed, and, when the text the recipes
+ * look for is known, which files they cannot change.
+ * <p>
+ * Recipes are recognized by the rewrite module providing them. The recipes of a language module only visit source
+ * files of that language, with the few exceptions listed here. Recipes of any other library are assumed to need every
+ * kind of source file, with types.
+ */
+public final class ParsePlan {
+    public enum SourceKind {
+        /**
+         * The poms of the maven projects, resolved as maven documents.
+         */
+        MAVEN,
+        JAVA,
+        XML,
+        YAML,
+        JSON,
+        PROPERTIES,
+        PROTO,
+        HCL,
+        /**
+         * Plain text, and files that no other parser accepts.
+         */
+        OTHER
+    }
+
+    /**
+     * Everything is parsed, and java sources are attributed against the classpath of their project.
+     */
+    public static final ParsePlan FULL = new ParsePlan(EnumSet.allOf(SourceKind.class), true, SourcePrefilter.NONE);
+
+    /**
+     * Composite and declarative recipes of rewrite-core do nothing of their own beyond running their recipe list.
+     */
+    private static final String COMPOSITE_PACKAGE = "org.openrewrite.config";
+
+    /**
+     * The recipes of rewrite-core in this package only visit plain text.
+     */
+    private static final String TEXT_PACKAGE = "org.openrewrite.text";
+
+    /**
+     * Formatting only looks at the syntax of java sources.
+     */
+    private static final String JAVA_FORMAT_PACKAGE = "org.openrewrite.java.format";
+
+    /**
+     * Maven recipes that also search java sources for the use of types, e.g. to only add a dependency when it is used.
+     */
+    private static final Set<String> MAVEN_RECIPES_USING_JAVA_TYPES = new HashSet<>(Arrays.asList(
+            "org.openrewrite.maven.AddDependency",
+            "org.openrewrite.maven.AddManagedDependency"
+    ));
+
+    private final Set<SourceKind> sourceKinds;
+    private final boolean typeAttribution;
+    private final SourcePrefilter prefilter;
+
+    private ParsePlan(Set<SourceKind> sourceKinds, boolean typeAttribution, SourcePrefilter prefilter) {
+        this.sourceKinds = sourceKinds;
+        this.typeAttribution = typeAttribution;
+        this.prefilter = prefilter;
+    }
+
+    /**
+     * @param typeAttribution {@code true} or {@code false} to choose whether java sources are attributed, or
+     *                        {@code auto} to only attribute them when one of the recipes may need types.
+     * @param sourceKinds     A comma separated list of the {@link SourceKind}s to parse, {@code all}, or {@code auto}
+     *                        to only parse the kinds the recipes can change.
+     */
+    public static ParsePlan forRecipe(Recipe recipe, String typeAttribution, String sourceKinds) {
+        Requirements requirements = new Requirements();
+        requirements.add(recipe);
+
+        Set<SourceKind> kinds;
+        if ("auto".equalsIgnoreCase(sourceKinds.trim())) {
+            kinds = requirements.sourceKinds;
+        } else if ("all".equalsIgnoreCase(sourceKinds.trim())) {
+            kinds = EnumSet.allOf(SourceKind.class);
+        } else {
+            kinds = EnumSet.noneOf(SourceKind.class);
+            for (String kind : sourceKinds.split(",")) {
+                try {
+                    kinds.add(SourceKind.valueOf(kind.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown source kind '" + kind.trim() + "', expected 'all', " +
+                                                       "'auto' or some of " + Arrays.toString(SourceKind.values()), e);
+                }
+            }
+        }
+
+        if ("auto".equalsIgnoreCase(typeAttribution)) {
+            return new ParsePlan(kinds, requirements.types, SourcePrefilter.NONE);
+        }
+        if ("true".equalsIgnoreCase(typeAttribution) || "false".equalsIgnoreCase(typeAttribution)) {
+            return new ParsePlan(kinds, Boolean.parseBoolean(typeAttribution), SourcePrefilter.NONE);
+        }
+        throw new IllegalArgumentException("Unknown type attribution mode '" + typeAttribution +
+                                           "', expected one of 'auto', 'true' or 'false'");
+    }
+
+    /**
+     * @param tokens Literal text, one piece of which every file the recipes can change contains, e.g. the fully
+     *               qualified name of a type, a package or an artifactId. No tokens lets every file be parsed.
+     */
+    public ParsePlan withPrefilter(Collection<String> tokens) {
+        return new ParsePlan(sourceKinds, typeAttribution, new SourcePrefilter(tokens));
+    }
+
+    /**
+     * @return Whether java sources and resources are only parsed when they contain one of the prefilter tokens.
+     */
+    public boolean isPrefiltered() {
+        return prefilter.isEnabled();
+    }
+
+    /**
+     * Java sources the recipes cannot change are not parsed at all. Other sources that refer to their types still
+     * have them attributed from the compiled classes, which are part of the classpath.
+     *
+     * @return Whether the recipes may change the java source or resource, i.e. whether it is worth parsing.
+     */
+    public boolean mayChange(Path sourcePath) {
+        return prefilter.mayMatch(sourcePath);
+    }
+
+    public boolean parses(SourceKind sourceKind) {
+        return sourceKinds.contains(sourceKind);
+    }
+
+    /**
+     * @return Whether anything is parsed from the files of a project besides its pom.
+     */
+    public boolean parsesProjectFiles() {
+        for (SourceKind sourceKind : sourceKinds) {
+            if (sourceKind != SourceKind.MAVEN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<SourceKind> getSourceKinds() {
+        return Collections.unmodifiableSet(sourceKinds);
+    }
+
+    /**
+     * Whether java sources are parsed against the classpath of their project, so that their types are attributed.
+     * Without type attribution java sources are parsed without a classpath, which is considerably faster and needs
+     * less memory, but leaves every type defined outside of the parsed sources unknown.
+     */
+    public boolean isTypeAttribution() {
+        return typeAttribution && parses(SourceKind.JAVA);
+    }
+
+    /**
+     * The rewrite modules whose recipes only visit one language, keyed by the location they were loaded from.
+     */
+    private enum Module {
+        // Recipes of rewrite-core are told apart by their package, and never look at types.
+        CORE(Recipe.class, SourceKind.OTHER),
+        JAVA(JavaVisitor.class, SourceKind.JAVA),
+        // Poms are XML documents too.
+        XML(XmlVisitor.class, SourceKind.XML, SourceKind.MAVEN),
+        MAVEN(MavenVisitor.class, SourceKind.MAVEN),
+        YAML(YamlVisitor.class, SourceKind.YAML),
+        JSON(JsonVisitor.class, SourceKind.JSON),
+        PROPERTIES(PropertiesVisitor.class, SourceKind.PROPERTIES),
+        PROTO(ProtoVisitor.class, SourceKind.PROTO),
+        HCL(HclVisitor.class, SourceKind.HCL);
+
+        @Nullable
+        private final String location;
+
+        private final Set<SourceKind> sourceKinds;
+
+        Module(Class<?> visitor, SourceKind sourceKind, SourceKind... moreSourceKinds) {
+            this.location = location(visitor);
+            this.sourceKinds = EnumSet.of(sourceKind, moreSourceKinds);
+        }
+
+        @Nullable
+        static Module of(Class<?> recipeClass) {
+            String location = location(recipeClass);
+            if (location != null) {
+                for (Module module : values()) {
+                    if (location.equals(module.location)) {
+                        return module;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Compared as strings, as {@link java.net.URL#equals(Object)} may resolve host names.
+         */
+        @Nullable
+        private static String location(Class<?> type) {
+            CodeSource codeSource = type.getProtectionDomain() == null ? null : type.getProtectionDomain().getCodeSource();
+            return codeSource == null || codeSource.getLocation() == null ? null : codeSource.getLocation().toExternalForm();
+        }
+    }
+
+    private static class Requirements {
+        private final Set<SourceKind> sourceKinds = EnumSet.noneOf(SourceKind.class);
+        private boolean types;
+
+        void add(Recipe recipe) {
+            Class<?> recipeClass = recipe.getClass();
+            String className = recipeClass.getName();
+            Module module = Module.of(recipeClass);
+            if (module == Module.CORE) {
+                if (className.startsWith(TEXT_PACKAGE + ".")) {
+                    sourceKinds.add(SourceKind.OTHER);
+                } else if (!className.startsWith(COMPOSITE_PACKAGE + ".")) {
+                    sourceKinds.addAll(EnumSet.allOf(SourceKind.class));
+                }
+            } else if (module == Module.JAVA) {
+                sourceKinds.add(SourceKind.JAVA);
+                types |= !className.startsWith(JAVA_FORMAT_PACKAGE + ".");
+            } else if (module == Module.MAVEN && MAVEN_RECIPES_USING_JAVA_TYPES.contains(className)) {
+                sourceKinds.add(SourceKind.MAVEN);
+                sourceKinds.add(SourceKind.JAVA);
+                types = true;
+            } else if (module != null) {
+                sourceKinds.addAll(module.sourceKinds);
+            } else {
+                sourceKinds.addAll(EnumSet.allOf(SourceKind.class));
+                types = true;
+            }
+
+            for (Recipe child : recipe.getRecipeList()) {
+                add(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.openrewrite.maven;
+
+import org.openrewrite.maven.tree.Pom;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A snapshot of an on-disk pom cache in a single gzipped file, to seed the pom cache of builds that start without one,
+ * e.g. on ephemeral CI agents.
+ * <p>
+ * The poms are kept as the caches serialize them, which changes between versions of rewrite, so a bundle is only
+ * imported by the version of rewrite that exported it.
+ */
+final class PomCacheBundle {
+    private static final String MAGIC = "rewrite-pom-cache-bundle";
+    private static final int VERSION = 1;
+
+    private PomCacheBundle() {
+    }
+
+    /**
+     * @return The number of poms exported.
+     */
+    static long export(RawPomCache cache, Path bundle) throws IOException {
+        Path parent = bundle.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path exporting = Files.createTempFile(parent, bundle.getFileName().toString(), ".exporting");
+        Set<String> keys = new HashSet<>();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(exporting))))) {
+                out.writeUTF(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(rewriteVersion());
+                cache.forEach((key, value) -> {
+                    // a pom written to several shards is exported once, and poms missing from the repositories of this
+                    // build are not worth seeding other builds with
+                    if (!PomCacheSerializer.isMissing(value) && keys.add(new String(key, StandardCharsets.UTF_8))) {
+                        out.writeInt(key.length);
+                        out.write(key);
+                        out.writeInt(value.length);
+                        out.write(value);
+                    }
+                });
+                out.writeInt(-1);
+            }
+            Files.move(exporting, bundle, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(exporting);
+        }
+        return keys.size();
+    }
+
+    /**
+     * @return The number of poms imported, which are those the cache did not have yet.
+     */
+    static long importInto(RawPomCache cache, Path bundle) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(bundle))))) {
+            if (!MAGIC.equals(readMagic(in)) || in.readInt() != VERSION) {
+                throw new IOException(bundle + " is not a pom cache bundle of version " + VERSION);
+            }
+            String version = in.readUTF();
+            if (!version.equals(rewriteVersion())) {
+                throw new IOException(bundle + " was exported with rewrite " + version + ", whose poms cannot be read by rewrite " +
+                                      rewriteVersion());
+            }
+
+            long imported = 0;
+            for (int keyLength = in.readInt(); keyLength >= 0; keyLength = in.readInt()) {
+                byte[] key = new byte[keyLength];
+                in.readFully(key);
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                if (cache.putIfAbsent(key, value)) {
+                    imported++;
+                }
+            }
+            return imported;
+        }
+    }
+
+    /**
+     * Imports a bundle unless the same bundle was imported into the cache before, as it is on every build of an agent
+     * that keeps its cache.
+     *
+     * @return The number of poms imported, or -1 when the bundle was imported before.
+     */
+    static long seed(RawPomCache cache, Path cacheDirectory, Path bundle) throws IOException {
+        String identity = bundle.toAbsolutePath() + ":" + Files.size(bundle) + ":" + Files.getLastModifiedTime(bundle).toMillis();
+        Path marker = cacheDirectory.resolve("seeded").resolve(sha256(identity));
+        if (Files.exists(marker)) {
+            return -1;
+        }
+        long imported = importInto(cache, bundle);
+        Files.createDirectories(marker.getParent());
+        Files.write(marker, identity.getBytes(StandardCharsets.UTF_8));
+        return imported;
+    }
+
+    private static String readMagic(DataInputStream in) throws IOException {
+        try {
+            return in.readUTF();
+        } catch (UTFDataFormatException e) {
+            return "";
+        }
+    }
+
+    private static String rewriteVersion() {
+        String version = Pom.class.getPackage().getImplementationVersion();
+        return version == null ? "unknown" : version;
+    }
+
+    private static String sha256(String text) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
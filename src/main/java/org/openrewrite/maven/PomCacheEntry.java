@@ -0,0 +1,57 @@
+package org.openrewrite.maven;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A pom in an on-disk maven pom cache, as seen when the cache is maintained rather than read.
+ *
+ * @param <L> Where the pom is kept, e.g. its key, or its position in a log.
+ */
+final class PomCacheEntry<L> {
+    final L location;
+    final long writtenAt;
+    final long bytes;
+
+    PomCacheEntry(L location, long writtenAt, long bytes) {
+        this.location = location;
+        this.writtenAt = writtenAt;
+        this.bytes = bytes;
+    }
+
+    static <L> PomCacheStatistics statistics(Collection<PomCacheEntry<L>> entries, long diskBytes, int storesInUse) {
+        long bytes = 0;
+        long oldest = Long.MAX_VALUE;
+        for (PomCacheEntry<L> entry : entries) {
+            bytes += entry.bytes;
+            oldest = Math.min(oldest, entry.writtenAt);
+        }
+        return new PomCacheStatistics(entries.size(), bytes, oldest, diskBytes, storesInUse);
+    }
+
+    /**
+     * @param expireBefore Entries written before this time are removed.
+     * @param maxBytes     After which the oldest entries are removed until the rest fit.
+     * @return The entries to remove.
+     */
+    static <L> List<PomCacheEntry<L>> toPrune(Collection<PomCacheEntry<L>> entries, long expireBefore, long maxBytes) {
+        List<PomCacheEntry<L>> oldestFirst = new ArrayList<>(entries);
+        oldestFirst.sort(Comparator.comparingLong(entry -> entry.writtenAt));
+
+        long remainingBytes = 0;
+        for (PomCacheEntry<L> entry : oldestFirst) {
+            remainingBytes += entry.bytes;
+        }
+        List<PomCacheEntry<L>> pruned = new ArrayList<>();
+        for (PomCacheEntry<L> entry : oldestFirst) {
+            if (entry.writtenAt >= expireBefore && remainingBytes <= maxBytes) {
+                break;
+            }
+            pruned.add(entry);
+            remainingBytes -= entry.bytes;
+        }
+        return pruned;
+    }
+}
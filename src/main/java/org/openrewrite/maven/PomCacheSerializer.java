@@ -0,0 +1,128 @@
+package org.openrewrite.maven;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.ConstructorDetector;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.maven.tree.Pom;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Writes poms for the on-disk pom caches, the same way as {@link org.openrewrite.maven.cache.RocksdbMavenPomCache},
+ * after a header holding the time they were written, so that old poms can be pruned. Poms that repositories do not
+ * have are written as a header alone, so that they are not asked for again until the header is too old.
+ */
+final class PomCacheSerializer {
+    /**
+     * Smile data starts with ':', so values written without a header are still read.
+     */
+    private static final byte FORMAT = 1;
+    private static final byte MISSING = 2;
+    static final int HEADER_BYTES = 9;
+
+    private static final ObjectMapper mapper;
+
+    static {
+        SmileFactory f = new SmileFactory();
+        f.configure(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES, true);
+        mapper = JsonMapper.builder(f)
+                .constructorDetector(ConstructorDetector.USE_PROPERTIES_BASED)
+                .build()
+                .registerModule(new ParameterNamesModule())
+                .registerModule(new Jdk8Module())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker()
+                .withFieldVisibility(JsonAutoDetect.Visibility.ANY)
+                .withGetterVisibility(JsonAutoDetect.Visibility.NONE)
+                .withSetterVisibility(JsonAutoDetect.Visibility.NONE)
+                .withCreatorVisibility(JsonAutoDetect.Visibility.PUBLIC_ONLY));
+    }
+
+    private PomCacheSerializer() {
+    }
+
+    static byte[] key(ResolvedGroupArtifactVersion gav) {
+        return gav.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] serialize(Pom pom) {
+        try {
+            byte[] smile = mapper.writeValueAsBytes(pom);
+            return ByteBuffer.allocate(HEADER_BYTES + smile.length)
+                    .put(FORMAT)
+                    .putLong(System.currentTimeMillis())
+                    .put(smile)
+                    .array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] serializeMissing() {
+        return ByteBuffer.allocate(HEADER_BYTES)
+                .put(MISSING)
+                .putLong(System.currentTimeMillis())
+                .array();
+    }
+
+    /**
+     * @return Whether the value records that the pom is missing from the repositories, rather than holding the pom.
+     */
+    static boolean isMissing(byte[] bytes) {
+        return bytes.length == HEADER_BYTES && bytes[0] == MISSING;
+    }
+
+    static Pom deserializePom(byte[] bytes) {
+        try {
+            return hasHeader(bytes) ?
+                    mapper.readValue(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES, Pom.class) :
+                    mapper.readValue(bytes, Pom.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a value the way {@link org.openrewrite.maven.cache.MavenPomCache#getPom} returns it.
+     *
+     * @param missingTtl How long a pom that is missing from the repositories is not asked for again.
+     * @return The pom, empty when it is missing from the repositories, or {@code null} when it was missing too long
+     * ago to still be trusted.
+     */
+    @Nullable
+    static Optional<Pom> read(byte[] value, Duration missingTtl) {
+        if (isMissing(value)) {
+            return writtenAt(value) + missingTtl.toMillis() > System.currentTimeMillis() ? Optional.empty() : null;
+        }
+        return Optional.of(deserializePom(value));
+    }
+
+    /**
+     * @param header At least the first {@link #HEADER_BYTES} of a serialized pom, or all of it when it is shorter.
+     * @return When the pom was written, or 0 when it was written before that was recorded.
+     */
+    static long writtenAt(byte[] header) {
+        return hasHeader(header) ? ByteBuffer.wrap(header, 1, 8).getLong() : 0;
+    }
+
+    private static boolean hasHeader(byte[] bytes) {
+        return bytes.length >= HEADER_BYTES && (bytes[0] == FORMAT || bytes[0] == MISSING);
+    }
+}
@@ -0,0 +1,102 @@
+package org.openrewrite.maven;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How the maven pom cache is set up. The cache is shared by every rewrite mojo execution of a JVM, so it is created
+ * with the settings of the first execution that needs it.
+ */
+public final class PomCacheSettings {
+    static final int DEFAULT_MAX_ENTRIES = 10_000;
+    static final Duration DEFAULT_MISSING_TTL = Duration.ofHours(24);
+
+    @Nullable
+    private final String directory;
+
+    private final int maxEntries;
+
+    private final Backend backend;
+
+    @Nullable
+    private final String seed;
+
+    private final Duration missingTtl;
+
+    /**
+     * @param directory  The directory holding the ".rewrite-cache" of the on-disk cache, the user's home by default.
+     * @param maxEntries The number of entries each in-memory cache keeps before evicting the least recently used ones.
+     * @param backend    How poms are kept on disk.
+     * @param seed       A bundle of poms exported by {@code rewrite:cache -Dmode=export} to import into the on-disk cache
+     *                   when it is opened.
+     * @param missingTtl How long the on-disk cache remembers that the repositories do not have a pom.
+     */
+    public PomCacheSettings(@Nullable String directory, int maxEntries, Backend backend, @Nullable String seed,
+                            Duration missingTtl) {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.backend = backend;
+        this.seed = seed;
+        this.missingTtl = missingTtl;
+    }
+
+    /**
+     * @param directory The directory holding the ".rewrite-cache" of the on-disk cache, the user's home by default.
+     * @return The settings the plugin's parameters default to.
+     */
+    public static PomCacheSettings defaults(@Nullable String directory) {
+        return new PomCacheSettings(directory, DEFAULT_MAX_ENTRIES, Backend.ROCKSDB, null, DEFAULT_MISSING_TTL);
+    }
+
+    /**
+     * @return The directory of the on-disk cache.
+     */
+    public Path getCacheDirectory() {
+        // Kept in ".rewrite-cache/poms", like the RocksdbMavenPomCache keeps its database in ".rewrite-cache".
+        return Paths.get(directory == null ? System.getProperty("user.home") : directory)
+                .resolve(".rewrite-cache").resolve("poms");
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    @Nullable
+    public Path getSeed() {
+        return seed == null ? null : Paths.get(seed);
+    }
+
+    public Duration getMissingTtl() {
+        return missingTtl;
+    }
+
+    public enum Backend {
+        /**
+         * {@link ShardedRocksdbMavenPomCache}, falling back to {@link #MMAP} when RocksDB is unavailable.
+         */
+        ROCKSDB,
+
+        /**
+         * {@link MappedFileMavenPomCache}, which needs no native code.
+         */
+        MMAP;
+
+        public static Backend parse(String backend) {
+            try {
+                return valueOf(backend.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown pom cache backend '" + backend.trim() + "', expected one of " +
+                                                   Arrays.toString(values()).toLowerCase(Locale.ROOT), e);
+            }
+        }
+    }
+}
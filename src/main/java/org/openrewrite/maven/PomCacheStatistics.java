@@ -0,0 +1,56 @@
+package org.openrewrite.maven;
+
+/**
+ * What an on-disk maven pom cache holds, or what was removed from it.
+ */
+public final class PomCacheStatistics {
+    public static final PomCacheStatistics NONE = new PomCacheStatistics(0, 0, Long.MAX_VALUE, 0, 0);
+
+    private final long poms;
+    private final long bytes;
+    private final long oldestWrittenAt;
+    private final long diskBytes;
+    private final int storesInUse;
+
+    /**
+     * @param poms            The number of poms.
+     * @param bytes           The size of the poms as serialized, with their keys.
+     * @param oldestWrittenAt When the oldest pom was written, 0 when it was written before that was recorded, or
+     *                        {@link Long#MAX_VALUE} when there are no poms.
+     * @param diskBytes       The size of the files of the cache.
+     * @param storesInUse     The number of shards or logs that were skipped, as other builds were using them.
+     */
+    public PomCacheStatistics(long poms, long bytes, long oldestWrittenAt, long diskBytes, int storesInUse) {
+        this.poms = poms;
+        this.bytes = bytes;
+        this.oldestWrittenAt = oldestWrittenAt;
+        this.diskBytes = diskBytes;
+        this.storesInUse = storesInUse;
+    }
+
+    public long getPoms() {
+        return poms;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getOldestWrittenAt() {
+        return oldestWrittenAt;
+    }
+
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    public int getStoresInUse() {
+        return storesInUse;
+    }
+
+    public PomCacheStatistics plus(PomCacheStatistics other) {
+        return new PomCacheStatistics(poms + other.poms, bytes + other.bytes,
+                Math.min(oldestWrittenAt, other.oldestWrittenAt), diskBytes + other.diskBytes,
+                storesInUse + other.storesInUse);
+    }
+}
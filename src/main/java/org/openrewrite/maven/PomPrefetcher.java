@@ -0,0 +1,260 @@
+package org.openrewrite.maven;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.maven.internal.MavenPomDownloader;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Downloads the parents and imported boms the poms of the reactor refer to, and those these refer to in turn, into the
+ * pom cache of the execution context, several at a time. Resolving the reactor afterwards finds them in the cache
+ * instead of downloading them one after the other as it comes across them.
+ * <p>
+ * Only coordinates whose version can be told from the poms at hand are prefetched. Whatever is missed, or fails to
+ * download, is left to the resolution of the reactor, which reports it as it always has.
+ */
+final class PomPrefetcher {
+    private final MavenPomDownloader downloader;
+    private final int threads;
+
+    /**
+     * Every pom read so far, by the coordinates it was requested with or, for poms of the reactor, declares.
+     */
+    private final Map<GroupArtifactVersion, Pom> poms = new HashMap<>();
+
+    private final Set<GroupArtifactVersion> requested = new HashSet<>();
+    private final Set<GroupArtifactVersion> failed = new HashSet<>();
+
+    /**
+     * @param ctx A context whose maven settings and pom cache are those the reactor is resolved with.
+     */
+    PomPrefetcher(Map<Path, Pom> projectPoms, ExecutionContext ctx, int threads) {
+        this.downloader = new MavenPomDownloader(projectPoms, ctx);
+        this.threads = threads;
+        for (Pom pom : projectPoms.values()) {
+            GroupArtifactVersion gav = gav(pom);
+            if (gav != null) {
+                poms.put(gav, pom);
+            }
+        }
+    }
+
+    /**
+     * Reads the poms of the reactor, skipping those that cannot be read, which are reported when they are parsed.
+     */
+    static Map<Path, Pom> readProjectPoms(Collection<Path> pomPaths) {
+        Map<Path, Pom> projectPoms = new LinkedHashMap<>();
+        for (Path pomPath : pomPaths) {
+            try (InputStream in = Files.newInputStream(pomPath)) {
+                projectPoms.put(pomPath, RawPom.parse(in, null).toPom(pomPath, null));
+            } catch (IOException | RuntimeException ignored) {
+            }
+        }
+        return projectPoms;
+    }
+
+    /**
+     * @return The number of poms downloaded, or found in the pom cache or the local repository.
+     */
+    int prefetch() throws InterruptedException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "rewrite-pom-prefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            int fetched = 0;
+            List<Read> scan = new ArrayList<>();
+            for (Pom pom : poms.values()) {
+                scan.add(new Read(pom, Collections.emptyList()));
+            }
+            List<Read> unresolved = new ArrayList<>();
+
+            // Each wave downloads what the poms read in the previous wave refer to. Poms importing a bom whose version
+            // is inherited are looked at again once their parents are read.
+            while (true) {
+                Map<GroupArtifactVersion, List<MavenRepository>> wave = new LinkedHashMap<>();
+                scan.addAll(unresolved);
+                unresolved.clear();
+                for (Read read : scan) {
+                    if (!references(read.pom, ListUtils.concatAll(read.pom.getRepositories(), read.repositories), wave)) {
+                        unresolved.add(read);
+                    }
+                }
+                if (wave.isEmpty()) {
+                    return fetched;
+                }
+
+                Map<GroupArtifactVersion, Future<Pom>> downloads = new LinkedHashMap<>();
+                for (Map.Entry<GroupArtifactVersion, List<MavenRepository>> entry : wave.entrySet()) {
+                    downloads.put(entry.getKey(), executor.submit(() -> downloader.download(entry.getKey(), null, null, entry.getValue())));
+                }
+                scan = new ArrayList<>();
+                for (Map.Entry<GroupArtifactVersion, Future<Pom>> download : downloads.entrySet()) {
+                    try {
+                        Pom pom = download.getValue().get();
+                        poms.put(download.getKey(), pom);
+                        scan.add(new Read(pom, wave.get(download.getKey())));
+                        fetched++;
+                    } catch (ExecutionException e) {
+                        // left to the resolution of the reactor to report
+                        failed.add(download.getKey());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Adds the parent and imported boms of a pom that were not requested yet to the wave.
+     *
+     * @return Whether the pom is done with, rather than some of its references waiting for its parents to be read.
+     */
+    private boolean references(Pom pom, List<MavenRepository> repositories, Map<GroupArtifactVersion, List<MavenRepository>> wave) {
+        boolean resolved = true;
+        GroupArtifactVersion parent = parent(pom);
+        if (parent != null) {
+            request(parent, repositories, wave);
+        }
+        for (ManagedDependency managed : pom.getDependencyManagement()) {
+            if (managed instanceof ManagedDependency.Imported) {
+                GroupArtifactVersion bom = resolve(pom, ((ManagedDependency.Imported) managed).getGav());
+                if (bom == null) {
+                    resolved = false;
+                } else {
+                    request(bom, repositories, wave);
+                }
+            }
+        }
+        return resolved || hasAllAncestors(pom);
+    }
+
+    private void request(GroupArtifactVersion gav, List<MavenRepository> repositories,
+                         Map<GroupArtifactVersion, List<MavenRepository>> wave) {
+        if (!poms.containsKey(gav) && requested.add(gav)) {
+            wave.put(gav, repositories);
+        }
+    }
+
+    private boolean hasAllAncestors(Pom pom) {
+        Set<Pom> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Pom p = pom; seen.add(p); ) {
+            GroupArtifactVersion parent = parent(p);
+            if (parent == null) {
+                return true;
+            }
+            p = poms.get(parent);
+            if (p == null) {
+                // a parent that failed to download is not waited for
+                return failed.contains(parent);
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private static GroupArtifactVersion parent(Pom pom) {
+        Parent parent = pom.getParent();
+        if (parent == null) {
+            return null;
+        }
+        // the coordinates of a parent cannot be inherited
+        return resolve(parent.getGav(), name -> own(pom, name));
+    }
+
+    @Nullable
+    private static GroupArtifactVersion gav(Pom pom) {
+        Parent parent = pom.getParent();
+        GroupArtifactVersion gav = new GroupArtifactVersion(
+                pom.getGroupId() == null && parent != null ? parent.getGroupId() : pom.getGroupId(),
+                pom.getArtifactId(),
+                pom.getVersion() == null && parent != null ? parent.getVersion() : pom.getVersion());
+        return resolve(gav, name -> own(pom, name));
+    }
+
+    /**
+     * Resolves the placeholders of coordinates with the properties of a pom and of the parents read so far.
+     */
+    @Nullable
+    private GroupArtifactVersion resolve(Pom pom, GroupArtifactVersion gav) {
+        return resolve(gav, name -> {
+            String value = own(pom, name);
+            Set<Pom> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            seen.add(pom);
+            for (GroupArtifactVersion parent = parent(pom); value == null && parent != null; ) {
+                Pom ancestor = poms.get(parent);
+                if (ancestor == null || !seen.add(ancestor)) {
+                    break;
+                }
+                value = ancestor.getProperties().get(name);
+                parent = parent(ancestor);
+            }
+            return value;
+        });
+    }
+
+    @Nullable
+    private static GroupArtifactVersion resolve(GroupArtifactVersion gav, Function<String, String> properties) {
+        String groupId = resolve(gav.getGroupId(), properties);
+        String version = resolve(gav.getVersion(), properties);
+        if (groupId == null || gav.getArtifactId() == null || gav.getArtifactId().contains("${") || version == null) {
+            return null;
+        }
+        return new GroupArtifactVersion(groupId, gav.getArtifactId(), version);
+    }
+
+    @Nullable
+    private static String resolve(@Nullable String value, Function<String, String> properties) {
+        if (value == null) {
+            return null;
+        }
+        String resolved = ResolvedPom.placeholderHelper.replacePlaceholders(value, properties);
+        return resolved.contains("${") ? null : resolved;
+    }
+
+    @Nullable
+    private static String own(Pom pom, String name) {
+        Parent parent = pom.getParent();
+        switch (name) {
+            case "project.groupId":
+            case "pom.groupId":
+                return pom.getGroupId() == null && parent != null ? parent.getGroupId() : pom.getGroupId();
+            case "project.version":
+            case "pom.version":
+                return pom.getVersion() == null && parent != null ? parent.getVersion() : pom.getVersion();
+            case "project.parent.groupId":
+                return parent == null ? null : parent.getGroupId();
+            case "project.parent.version":
+                return parent == null ? null : parent.getVersion();
+            default:
+                return pom.getProperties().get(name);
+        }
+    }
+
+    /**
+     * A pom, with the repositories it was requested from, which are searched for the poms it refers to as well.
+     */
+    private static class Read {
+        final Pom pom;
+        final List<MavenRepository> repositories;
+
+        Read(Pom pom, List<MavenRepository> repositories) {
+            this.pom = pom;
+            this.repositories = repositories;
+        }
+    }
+}
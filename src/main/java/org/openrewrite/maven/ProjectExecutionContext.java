@@ -0,0 +1,73 @@
+package org.openrewrite.maven;
+
+import org.openrewrite.DelegatingExecutionContext;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The context one of several maven projects parsed at the same time is parsed with. It sees everything the caller's
+ * context holds, e.g. its messages, maven settings, pom cache and http sender, and reports errors and timeouts to it,
+ * but what is put in it while the project is parsed, e.g. the source encoding of the project, is kept to the project.
+ * <p>
+ * Nothing the caller's context holds is changed: polling a message only removes it from the project's context, and
+ * adding to a collection the caller put adds to a copy of it.
+ */
+final class ProjectExecutionContext extends DelegatingExecutionContext {
+    private final ExecutionContext caller;
+    private final Map<String, Object> messages = new ConcurrentHashMap<>();
+
+    ProjectExecutionContext(ExecutionContext caller) {
+        super(caller);
+        this.caller = caller;
+    }
+
+    @Override
+    public void putMessage(String key, @Nullable Object value) {
+        if (value == null) {
+            messages.remove(key);
+        } else {
+            messages.put(key, value);
+        }
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T getMessage(String key) {
+        Object value = messages.get(key);
+        return value == null ? caller.getMessage(key) : (T) value;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T pollMessage(String key) {
+        return (T) messages.remove(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V, C extends Collection<V>> C putMessageInCollection(String key, V value, Supplier<C> newCollection) {
+        C collection = (C) messages.computeIfAbsent(key, k -> {
+            C copy = newCollection.get();
+            Collection<V> inherited = caller.getMessage(k);
+            if (inherited != null) {
+                copy.addAll(inherited);
+            }
+            return copy;
+        });
+        collection.add(value);
+        return collection;
+    }
+
+    @Override
+    public Duration getRunTimeout(int inputs) {
+        return caller.getRunTimeout(inputs);
+    }
+}
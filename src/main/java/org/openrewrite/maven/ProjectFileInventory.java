@@ -0,0 +1,106 @@
+package org.openrewrite.maven;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * The files of one maven project, found by a single walk of the project directory, from which every source set and
+ * parser takes its share instead of walking the file system again.
+ * <p>
+ * Files are kept in the order the walk visited them, which is the order a walk of any of the project's subdirectories
+ * would have visited them in.
+ */
+public class ProjectFileInventory {
+    /**
+     * How deep below the directory it is listed from a file may be, mirroring the depth walks were limited to.
+     */
+    static final int MAX_DEPTH = 16;
+
+    private final Path projectDirectory;
+    private final Collection<Path> javaSourceDirectories;
+    private final List<Entry> files = new ArrayList<>();
+
+    ProjectFileInventory(Path projectDirectory, Collection<Path> javaSourceDirectories) {
+        this.projectDirectory = projectDirectory;
+        this.javaSourceDirectories = javaSourceDirectories;
+    }
+
+    public Path getProjectDirectory() {
+        return projectDirectory;
+    }
+
+    /**
+     * Java sources are listed from every subdirectory of a source directory, including those no resource is parsed
+     * from, e.g. generated sources below the build directory. The walk has to enter those directories.
+     */
+    boolean isOnJavaSourcePath(Path directory) {
+        for (Path javaSourceDirectory : javaSourceDirectories) {
+            if (directory.startsWith(javaSourceDirectory) || javaSourceDirectory.startsWith(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(Path file, BasicFileAttributes attrs, boolean resource) {
+        files.add(new Entry(file, attrs, resource));
+    }
+
+    /**
+     * @return Whether the java sources of {@code sourceDirectory} were collected by the walk. When they were not, e.g.
+     * because the directory is outside the project, they have to be listed from the file system.
+     */
+    public boolean containsJavaSources(Path sourceDirectory) {
+        return sourceDirectory.startsWith(projectDirectory) && javaSourceDirectories.contains(sourceDirectory);
+    }
+
+    public List<Path> javaSources(Path sourceDirectory) {
+        List<Path> javaSources = new ArrayList<>();
+        for (Entry entry : files) {
+            if (isBelow(entry.path, sourceDirectory) && !entry.attrs.isDirectory() &&
+                    entry.path.toString().endsWith(".java")) {
+                javaSources.add(entry.path);
+            }
+        }
+        return javaSources;
+    }
+
+    /**
+     * @return Whether the resources below {@code searchDir} were collected by the walk.
+     */
+    public boolean containsResources(Path searchDir) {
+        return searchDir.startsWith(projectDirectory);
+    }
+
+    /**
+     * Visit the files below {@code searchDir} that are candidates for resource parsing, i.e. that are not in a
+     * directory skipped by the resource parser.
+     */
+    public void forEachResource(Path searchDir, BiConsumer<Path, BasicFileAttributes> action) {
+        for (Entry entry : files) {
+            if (entry.resource && isBelow(entry.path, searchDir)) {
+                action.accept(entry.path, entry.attrs);
+            }
+        }
+    }
+
+    private static boolean isBelow(Path file, Path directory) {
+        return file.startsWith(directory) && directory.relativize(file).getNameCount() <= MAX_DEPTH;
+    }
+
+    private static class Entry {
+        private final Path path;
+        private final BasicFileAttributes attrs;
+        private final boolean resource;
+
+        private Entry(Path path, BasicFileAttributes attrs, boolean resource) {
+            this.path = path;
+            this.attrs = attrs;
+            this.resource = resource;
+        }
+    }
+}
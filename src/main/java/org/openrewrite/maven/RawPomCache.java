@@ -0,0 +1,25 @@
+package org.openrewrite.maven;
+
+import java.io.IOException;
+
+/**
+ * An on-disk pom cache whose entries can be copied as they are, without deserializing the poms, e.g. to and from a
+ * {@link PomCacheBundle}.
+ */
+interface RawPomCache extends AutoCloseable {
+
+    void forEach(EntryConsumer consumer) throws IOException;
+
+    /**
+     * @return Whether the entry was added, which it is not when the cache has the key already or cannot be written to.
+     */
+    boolean putIfAbsent(byte[] key, byte[] value);
+
+    @Override
+    void close();
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(byte[] key, byte[] value) throws IOException;
+    }
+}
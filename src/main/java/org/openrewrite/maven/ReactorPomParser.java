@@ -0,0 +1,229 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.project.MavenProject;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Parser;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.maven.internal.MavenPomDownloader;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.*;
+import org.openrewrite.tree.ParsingExecutionContextView;
+import org.openrewrite.xml.XmlParser;
+import org.openrewrite.xml.tree.Xml;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static org.openrewrite.Tree.randomId;
+
+/**
+ * Parses the poms of the reactor like the {@link MavenParser} does, except that the dependencies of the poms of
+ * {@link MavenProject}s whose dependencies maven has already resolved are taken from maven, rather than being resolved
+ * again. Parents, properties and dependency management are still resolved by rewrite, from the pom cache.
+ * <p>
+ * Maven's resolution and rewrite's may differ in details that recipes rarely look at: licenses of dependencies are not
+ * known, and dependencies are attributed to the repository they were resolved from only when maven recorded it.
+ */
+final class ReactorPomParser {
+    private static final Scope[] SCOPES = {Scope.Compile, Scope.Provided, Scope.Runtime, Scope.Test};
+
+    private final List<String> activeProfiles;
+
+    /**
+     * The projects of the reactor, by the path of their pom.
+     */
+    private final Map<Path, MavenProject> projects;
+
+    ReactorPomParser(List<String> activeProfiles, Map<Path, MavenProject> projects) {
+        this.activeProfiles = activeProfiles;
+        this.projects = projects;
+    }
+
+    List<Xml.Document> parse(Collection<Path> pomPaths, Path baseDir, ExecutionContext ctx) {
+        Map<Xml.Document, Pom> projectPoms = new LinkedHashMap<>();
+        Map<Xml.Document, Path> pomPathsByDocument = new HashMap<>();
+        Map<Path, Pom> projectPomsByPath = new HashMap<>();
+        for (Path pomPath : pomPaths) {
+            Parser.Input input = new Parser.Input(pomPath, () -> {
+                try {
+                    return Files.newInputStream(pomPath);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try {
+                Path relativePath = input.getRelativePath(baseDir);
+                Pom pom = RawPom.parse(input.getSource(ctx), null).toPom(relativePath, null);
+                if (pom.getProperties() == null || pom.getProperties().isEmpty()) {
+                    pom = pom.withProperties(new LinkedHashMap<>());
+                }
+                String projectDirectory = pomPath.toAbsolutePath().getParent().toString();
+                pom.getProperties().put("project.basedir", projectDirectory);
+                pom.getProperties().put("basedir", projectDirectory);
+
+                Xml.Document xml = new XmlParser().parseInputs(Collections.singletonList(input), baseDir, ctx).iterator().next();
+                projectPoms.put(xml, pom);
+                pomPathsByDocument.put(xml, pomPath);
+                projectPomsByPath.put(pomPath.toAbsolutePath(), pom);
+            } catch (Throwable t) {
+                ParsingExecutionContextView.view(ctx).parseFailure(input, baseDir, new XmlParser(), t);
+                ctx.getOnError().accept(t);
+            }
+        }
+
+        MavenPomDownloader downloader = new MavenPomDownloader(projectPomsByPath, ctx);
+        MavenExecutionContextView mavenCtx = MavenExecutionContextView.view(ctx);
+        MavenSettings settings = mavenCtx.getSettings() == null ? null : mavenCtx.getSettings().withServers(null);
+
+        List<Xml.Document> parsed = new ArrayList<>();
+        for (Map.Entry<Xml.Document, Pom> entry : projectPoms.entrySet()) {
+            try {
+                ResolvedPom resolvedPom = entry.getValue().resolve(activeProfiles, downloader, ctx);
+                MavenResolutionResult model = new MavenResolutionResult(randomId(), null, resolvedPom, emptyList(), null,
+                        emptyMap(), settings, mavenCtx.getActiveProfiles());
+                Map<Scope, List<ResolvedDependency>> dependencies = dependencies(projects.get(pomPathsByDocument.get(entry.getKey())),
+                        resolvedPom, mavenCtx.getLocalRepository());
+                MavenResolutionResult resolved = dependencies == null ?
+                        model.resolveDependencies(downloader, ctx) :
+                        model.withDependencies(dependencies);
+                parsed.add(entry.getKey().withMarkers(entry.getKey().getMarkers().compute(resolved, (old, n) -> n)));
+            } catch (MavenDownloadingExceptions e) {
+                throw new UncheckedMavenDownloadingException(entry.getKey(), e);
+            } catch (MavenDownloadingException e) {
+                throw new UncheckedMavenDownloadingException(entry.getKey(), e);
+            }
+        }
+
+        // link the poms of the reactor to their parents and modules, as the MavenParser does
+        for (Xml.Document document : parsed) {
+            MavenResolutionResult model = model(document);
+            List<MavenResolutionResult> modules = new ArrayList<>();
+            for (Xml.Document other : parsed) {
+                MavenResolutionResult module = model(other);
+                Parent parent = module.getPom().getRequested().getParent();
+                if (parent != null &&
+                    model.getPom().getGroupId().equals(module.getPom().getValue(parent.getGroupId())) &&
+                    model.getPom().getArtifactId().equals(module.getPom().getValue(parent.getArtifactId())) &&
+                    model.getPom().getVersion().equals(module.getPom().getValue(parent.getVersion()))) {
+                    module.unsafeSetParent(model);
+                    modules.add(module);
+                }
+            }
+            if (!modules.isEmpty()) {
+                model.unsafeSetModules(modules);
+            }
+        }
+        return parsed;
+    }
+
+    private static MavenResolutionResult model(Xml.Document document) {
+        return document.getMarkers().findFirst(MavenResolutionResult.class)
+                .orElseThrow(() -> new IllegalStateException("Expected to find a maven resolution marker"));
+    }
+
+    /**
+     * @return The dependencies of each scope as maven resolved them, or {@code null} when maven has not resolved them.
+     */
+    @Nullable
+    static Map<Scope, List<ResolvedDependency>> dependencies(@Nullable MavenProject project, ResolvedPom resolvedPom,
+                                                             MavenRepository localRepository) {
+        if (project == null) {
+            return null;
+        }
+        Set<Artifact> artifacts = project.getArtifacts();
+        if (artifacts.isEmpty() && !project.getDependencies().isEmpty()) {
+            return null;
+        }
+        List<Artifact> directArtifacts = new ArrayList<>();
+        Map<String, List<Artifact>> children = new HashMap<>();
+        for (Artifact artifact : artifacts) {
+            // the trail starts with the project and ends with the artifact
+            List<String> trail = artifact.getDependencyTrail();
+            if (trail == null || trail.size() < 2) {
+                return null;
+            } else if (trail.size() == 2) {
+                directArtifacts.add(artifact);
+            } else {
+                children.computeIfAbsent(trail.get(trail.size() - 2), id -> new ArrayList<>()).add(artifact);
+            }
+        }
+
+        Map<Scope, List<ResolvedDependency>> dependencies = new EnumMap<>(Scope.class);
+        for (Scope scope : SCOPES) {
+            List<ResolvedDependency> direct = new ArrayList<>();
+            for (Artifact artifact : directArtifacts) {
+                if (inClasspathOf(artifact, scope)) {
+                    direct.add(resolved(artifact, requested(artifact, resolvedPom), children, scope, localRepository, 0));
+                }
+            }
+            dependencies.put(scope, breadthFirst(direct));
+        }
+        return dependencies;
+    }
+
+    private static ResolvedDependency resolved(Artifact artifact, Dependency requested, Map<String, List<Artifact>> children,
+                                               Scope scope, MavenRepository localRepository, int depth) {
+        List<ResolvedDependency> dependencies = new ArrayList<>();
+        for (Artifact child : children.getOrDefault(artifact.getId(), emptyList())) {
+            if (inClasspathOf(child, scope)) {
+                dependencies.add(resolved(child, requested(child), children, scope, localRepository, depth + 1));
+            }
+        }
+        MavenRepository repository = repository(artifact.getRepository(), localRepository);
+        String datedSnapshotVersion = artifact.getVersion().equals(artifact.getBaseVersion()) ? null : artifact.getVersion();
+        return new ResolvedDependency(repository,
+                new ResolvedGroupArtifactVersion(repository.getUri(), artifact.getGroupId(), artifact.getArtifactId(),
+                        artifact.getBaseVersion(), datedSnapshotVersion),
+                requested, dependencies, emptyList(), depth);
+    }
+
+    /**
+     * Direct dependencies are attributed to the dependency as the pom declares it, like rewrite's resolution does.
+     */
+    private static Dependency requested(Artifact artifact, ResolvedPom resolvedPom) {
+        for (Dependency dependency : resolvedPom.getRequestedDependencies()) {
+            if (artifact.getGroupId().equals(resolvedPom.getValue(dependency.getGroupId())) &&
+                artifact.getArtifactId().equals(resolvedPom.getValue(dependency.getArtifactId())) &&
+                Objects.equals(artifact.getClassifier(), resolvedPom.getValue(dependency.getClassifier())) &&
+                artifact.getType().equals(dependency.getType() == null ? "jar" : resolvedPom.getValue(dependency.getType()))) {
+                return dependency;
+            }
+        }
+        return requested(artifact);
+    }
+
+    private static Dependency requested(Artifact artifact) {
+        return new Dependency(new GroupArtifactVersion(artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion()),
+                artifact.getClassifier(), artifact.getType(), artifact.getScope(), emptyList(), artifact.isOptional());
+    }
+
+    private static boolean inClasspathOf(Artifact artifact, Scope scope) {
+        Scope artifactScope = Scope.fromName(artifact.getScope());
+        return artifactScope == scope || artifactScope.isInClasspathOf(scope);
+    }
+
+    private static MavenRepository repository(@Nullable ArtifactRepository repository, MavenRepository localRepository) {
+        if (repository == null || repository.getUrl() == null) {
+            return localRepository;
+        }
+        return new MavenRepository(repository.getId(), repository.getUrl(), true, true, null, null);
+    }
+
+    /**
+     * Lists the dependencies and their transitive dependencies nearest first, as rewrite's resolution lists them.
+     */
+    private static List<ResolvedDependency> breadthFirst(List<ResolvedDependency> direct) {
+        List<ResolvedDependency> all = new ArrayList<>(direct);
+        for (int i = 0; i < all.size(); i++) {
+            all.addAll(all.get(i).getDependencies());
+        }
+        return all;
+    }
+}
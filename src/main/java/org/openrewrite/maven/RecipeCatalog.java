@@ -0,0 +1,446 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.Log;
+import org.openrewrite.Recipe;
+import org.openrewrite.config.*;
+import org.openrewrite.internal.RecipeIntrospectionUtils;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.style.NamedStyles;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * An on-disk index of the recipes, styles and declarative recipe definitions that scanning a classpath finds, so that
+ * later runs with the same jars instantiate the indexed classes and read the indexed YAML resources directly instead
+ * of scanning every class of every jar again.
+ * <p>
+ * An index is kept for each classpath, and holds the SHA-256 checksum of every jar on it. The checksum of a jar is
+ * only computed again when its size or modification time differ from what the index recorded, and the index is only
+ * used when all checksums are unchanged. YAML definitions are read again on every run, as they are subject to the
+ * properties of the project.
+ * <p>
+ * Loaders backed by an index create new recipe instances every time their recipes are listed, see
+ * {@link #createsRecipeInstances(ResourceLoader)}.
+ */
+public class RecipeCatalog {
+    private static final String FORMAT = "rewrite-recipe-catalog 1";
+    private static final String DEFINITIONS = "META-INF/rewrite/";
+
+    private final Path cacheDirectory;
+    private final Log logger;
+
+    public RecipeCatalog(Path cacheDirectory, Log logger) {
+        this.cacheDirectory = cacheDirectory;
+        this.logger = logger;
+    }
+
+    /**
+     * @param classLoader           The class loader whose jars contain the recipes, and that loads the indexed classes.
+     * @param definitionClassLoader The class loader that declarative recipes load the recipes they use from, as it
+     *                              would be given to {@link YamlResourceLoader}.
+     * @param scan                  Scans the jars of {@code classLoader}, when there is no index of them or one of
+     *                              them changed.
+     * @return A loader backed by the index, or what {@code scan} returned when the classpath cannot be indexed.
+     */
+    public ResourceLoader load(ClassLoader classLoader, @Nullable ClassLoader definitionClassLoader,
+                               Properties properties, Supplier<? extends ResourceLoader> scan) {
+        List<Path> classpath = classpath(classLoader);
+        if (classpath == null) {
+            return scan.get();
+        }
+
+        Path indexFile = cacheDirectory.resolve(digest(classpath.toString().getBytes(StandardCharsets.UTF_8)) + ".idx");
+        Index index = read(indexFile);
+        try {
+            List<Jar> jars = jars(classpath, index);
+            if (index != null && index.hasChecksumsOf(jars)) {
+                try {
+                    ResourceLoader indexed = new IndexedResourceLoader(index, classLoader, definitionClassLoader, properties);
+                    if (!index.jars.equals(jars)) {
+                        // Only modification times changed. Record them so that the checksums are not computed again.
+                        write(indexFile, new Index(jars, index.recipes, index.styles, index.definitions));
+                    }
+                    return indexed;
+                } catch (Exception e) {
+                    logger.debug("Unable to load recipes from the recipe catalog " + indexFile + ", scanning the classpath instead", e);
+                }
+            }
+
+            ResourceLoader scanned = scan.get();
+            Index scannedIndex = Index.of(jars, scanned);
+            write(indexFile, scannedIndex);
+            try {
+                return new IndexedResourceLoader(scannedIndex, classLoader, definitionClassLoader, properties);
+            } catch (Exception e) {
+                logger.debug("Unable to load recipes from the recipe catalog " + indexFile, e);
+                return scanned;
+            }
+        } catch (IOException e) {
+            logger.debug("Unable to index the recipes of " + classpath, e);
+            return scan.get();
+        }
+    }
+
+    /**
+     * @return Whether every listing of the recipes of {@code loader} creates new instances of them, so that recipes
+     * activated from it are not shared with those activated before.
+     */
+    public static boolean createsRecipeInstances(ResourceLoader loader) {
+        return loader instanceof IndexedResourceLoader;
+    }
+
+    /**
+     * @return The jars of a class loader, or {@code null} when some of its classpath is not a jar file, which is then
+     * simply scanned on every run.
+     */
+    @Nullable
+    private static List<Path> classpath(ClassLoader classLoader) {
+        if (!(classLoader instanceof URLClassLoader)) {
+            return null;
+        }
+        List<Path> classpath = new ArrayList<>();
+        for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+            if (!"file".equals(url.getProtocol())) {
+                return null;
+            }
+            try {
+                Path jar = Paths.get(url.toURI());
+                if (!Files.isRegularFile(jar)) {
+                    return null;
+                }
+                classpath.add(jar);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return classpath;
+    }
+
+    private static List<Jar> jars(List<Path> classpath, @Nullable Index index) throws IOException {
+        Map<String, Jar> indexed = new HashMap<>();
+        if (index != null) {
+            for (Jar jar : index.jars) {
+                indexed.put(jar.path, jar);
+            }
+        }
+
+        List<Jar> jars = new ArrayList<>(classpath.size());
+        for (Path path : classpath) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            Jar jar = indexed.get(path.toString());
+            if (jar == null || jar.size != size || jar.lastModified != lastModified) {
+                jar = new Jar(path.toString(), size, lastModified, checksum(path));
+            }
+            jars.add(jar);
+        }
+        return jars;
+    }
+
+    private static String checksum(Path jar) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream is = Files.newInputStream(jar)) {
+                for (int read = is.read(buffer); read != -1; read = is.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            return hex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    @Nullable
+    private Index read(Path indexFile) {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            if (!FORMAT.equals(reader.readLine())) {
+                return null;
+            }
+            List<Jar> jars = new ArrayList<>();
+            List<String> recipes = new ArrayList<>();
+            List<String> styles = new ArrayList<>();
+            List<String> definitions = new ArrayList<>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] entry = line.split(" ", 2);
+                switch (entry[0]) {
+                    case "jar":
+                        String[] jar = entry[1].split(" ", 4);
+                        jars.add(new Jar(jar[3], Long.parseLong(jar[1]), Long.parseLong(jar[2]), jar[0]));
+                        break;
+                    case "recipe":
+                        recipes.add(entry[1]);
+                        break;
+                    case "style":
+                        styles.add(entry[1]);
+                        break;
+                    case "definition":
+                        definitions.add(entry[1]);
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            return new Index(jars, recipes, styles, definitions);
+        } catch (Exception e) {
+            logger.debug("Discarding unreadable recipe catalog " + indexFile, e);
+            return null;
+        }
+    }
+
+    private void write(Path indexFile, Index index) {
+        try {
+            Files.createDirectories(indexFile.getParent());
+            // Write to a temporary file first, so that concurrent builds never read a partially written index.
+            Path temp = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(FORMAT);
+                    writer.newLine();
+                    for (Jar jar : index.jars) {
+                        writer.write("jar " + jar.checksum + " " + jar.size + " " + jar.lastModified + " " + jar.path);
+                        writer.newLine();
+                    }
+                    for (String recipe : index.recipes) {
+                        writer.write("recipe " + recipe);
+                        writer.newLine();
+                    }
+                    for (String style : index.styles) {
+                        writer.write("style " + style);
+                        writer.newLine();
+                    }
+                    for (String definition : index.definitions) {
+                        writer.write("definition " + definition);
+                        writer.newLine();
+                    }
+                }
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to write the recipe catalog " + indexFile, e);
+        }
+    }
+
+    private static final class Jar {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final String checksum;
+
+        private Jar(String path, long size, long lastModified, String checksum) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Jar jar = (Jar) o;
+            return size == jar.size && lastModified == jar.lastModified && path.equals(jar.path) &&
+                   checksum.equals(jar.checksum);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified, checksum);
+        }
+    }
+
+    private static final class Index {
+        private final List<Jar> jars;
+        private final List<String> recipes;
+        private final List<String> styles;
+
+        /**
+         * The URIs of the YAML resources below {@code META-INF/rewrite}.
+         */
+        private final List<String> definitions;
+
+        private Index(List<Jar> jars, List<String> recipes, List<String> styles, List<String> definitions) {
+            this.jars = jars;
+            this.recipes = recipes;
+            this.styles = styles;
+            this.definitions = definitions;
+        }
+
+        static Index of(List<Jar> jars, ResourceLoader scanned) throws IOException {
+            List<String> recipes = new ArrayList<>();
+            for (Recipe recipe : scanned.listRecipes()) {
+                // Declarative recipes are read from their definitions.
+                if (!(recipe instanceof DeclarativeRecipe)) {
+                    recipes.add(recipe.getClass().getName());
+                }
+            }
+            List<String> styles = new ArrayList<>();
+            for (NamedStyles style : scanned.listStyles()) {
+                if (!(style instanceof DeclarativeNamedStyles)) {
+                    styles.add(style.getClass().getName());
+                }
+            }
+            List<String> definitions = new ArrayList<>();
+            for (Jar jar : jars) {
+                try (JarFile jarFile = new JarFile(jar.path)) {
+                    Enumeration<JarEntry> entries = jarFile.entries();
+                    while (entries.hasMoreElements()) {
+                        JarEntry entry = entries.nextElement();
+                        if (!entry.isDirectory() && entry.getName().startsWith(DEFINITIONS) && entry.getName().endsWith(".yml")) {
+                            definitions.add("jar:" + Paths.get(jar.path).toUri() + "!/" + entry.getName());
+                        }
+                    }
+                }
+            }
+            return new Index(jars, recipes, styles, definitions);
+        }
+
+        boolean hasChecksumsOf(List<Jar> jars) {
+            if (this.jars.size() != jars.size()) {
+                return false;
+            }
+            for (int i = 0; i < jars.size(); i++) {
+                if (!this.jars.get(i).path.equals(jars.get(i).path) ||
+                    !this.jars.get(i).checksum.equals(jars.get(i).checksum)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Loads what {@link ClasspathScanningLoader} would have found from the index. Unlike it, recipes are instantiated
+     * again every time they are listed, as recipes are not guaranteed to be stateless. Recipe descriptors are only
+     * introspected when they are asked for, as only discovering recipes needs them.
+     */
+    private static final class IndexedResourceLoader implements ResourceLoader {
+        private final List<Class<?>> recipeClasses = new ArrayList<>();
+        private final List<NamedStyles> styles = new ArrayList<>();
+        private final List<CategoryDescriptor> categoryDescriptors = new ArrayList<>();
+        private final List<RecipeExample> recipeExamples = new ArrayList<>();
+        private final List<YamlResourceLoader> definitions = new ArrayList<>();
+
+        @Nullable
+        private List<RecipeDescriptor> recipeDescriptors;
+
+        IndexedResourceLoader(Index index, ClassLoader classLoader, @Nullable ClassLoader definitionClassLoader,
+                              Properties properties) throws Exception {
+            for (String recipe : index.recipes) {
+                recipeClasses.add(Class.forName(recipe, false, classLoader));
+            }
+            for (String style : index.styles) {
+                Constructor<?> constructor = RecipeIntrospectionUtils.getZeroArgsConstructor(Class.forName(style, false, classLoader));
+                constructor.setAccessible(true);
+                styles.add((NamedStyles) constructor.newInstance());
+            }
+            for (String definition : index.definitions) {
+                URI uri = URI.create(definition);
+                URLConnection connection = uri.toURL().openConnection();
+                // Do not keep the jar open once its definitions are read.
+                connection.setUseCaches(false);
+                try (InputStream is = connection.getInputStream()) {
+                    definitions.add(new YamlResourceLoader(is, uri, properties, definitionClassLoader, Collections.emptyList()));
+                }
+            }
+            // Fails while loading rather than in the executions activating recipes, when a recipe cannot be constructed.
+            listRecipes();
+            for (YamlResourceLoader definition : definitions) {
+                categoryDescriptors.addAll(definition.listCategoryDescriptors());
+                styles.addAll(definition.listStyles());
+                recipeExamples.addAll(definition.listRecipeExamples());
+            }
+        }
+
+        @Override
+        public Collection<Recipe> listRecipes() {
+            List<Recipe> recipes = new ArrayList<>(recipeClasses.size());
+            for (Class<?> recipeClass : recipeClasses) {
+                recipes.add(RecipeIntrospectionUtils.constructRecipe(recipeClass));
+            }
+            for (YamlResourceLoader definition : definitions) {
+                recipes.addAll(definition.listRecipes());
+            }
+            return recipes;
+        }
+
+        @Override
+        public synchronized Collection<RecipeDescriptor> listRecipeDescriptors() {
+            if (recipeDescriptors == null) {
+                recipeDescriptors = new ArrayList<>();
+                Collection<Recipe> recipes = listRecipes();
+                for (Recipe recipe : recipes) {
+                    if (!(recipe instanceof DeclarativeRecipe)) {
+                        recipeDescriptors.add(RecipeIntrospectionUtils.recipeDescriptorFromRecipe(recipe));
+                    }
+                }
+                for (YamlResourceLoader definition : definitions) {
+                    recipeDescriptors.addAll(definition.listRecipeDescriptors(recipes));
+                }
+            }
+            return recipeDescriptors;
+        }
+
+        @Override
+        public Collection<NamedStyles> listStyles() {
+            return styles;
+        }
+
+        @Override
+        public Collection<CategoryDescriptor> listCategoryDescriptors() {
+            return categoryDescriptors;
+        }
+
+        @Override
+        public Collection<RecipeExample> listRecipeExamples() {
+            return recipeExamples;
+        }
+    }
+}
@@ -3,9 +3,12 @@ package org.openrewrite.maven;
 import org.apache.maven.plugin.logging.Log;
 import org.openrewrite.ExecutionContext;
 import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Parser;
 import org.openrewrite.SourceFile;
 import org.openrewrite.hcl.HclParser;
+import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.json.JsonParser;
+import org.openrewrite.maven.ParsePlan.SourceKind;
 import org.openrewrite.properties.PropertiesParser;
 import org.openrewrite.protobuf.ProtoParser;
 import org.openrewrite.text.PlainText;
@@ -21,34 +24,89 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 public class ResourceParser {
     private static final Set<String> DEFAULT_IGNORED_DIRECTORIES = new HashSet<>(Arrays.asList("build", "target", "out", ".gradle", ".idea", ".project", "node_modules", ".git", ".metadata", ".DS_Store"));
 
     private final Path baseDir;
     private final Log logger;
-    private final Collection<PathMatcher> exclusions;
+    private final GlobMatcher exclusions;
     private final int sizeThresholdMb;
     private final Collection<Path> excludedDirectories;
-    private final Collection<PathMatcher> plainTextMasks;
+    private final GlobMatcher plainTextMasks;
+
+    @Nullable
+    private final SourceFileCache sourceFileCache;
+
+    private final ParsePlan parsePlan;
 
     public ResourceParser(Path baseDir, Log logger, Collection<String> exclusions, Collection<String> plainTextMasks, int sizeThresholdMb, Collection<Path> excludedDirectories) {
+        this(baseDir, logger, exclusions, plainTextMasks, sizeThresholdMb, excludedDirectories, null);
+    }
+
+    public ResourceParser(Path baseDir, Log logger, Collection<String> exclusions, Collection<String> plainTextMasks, int sizeThresholdMb, Collection<Path> excludedDirectories, @Nullable SourceFileCache sourceFileCache) {
+        this(baseDir, logger, GlobMatcher.compile(baseDir.getFileSystem(), exclusions),
+                GlobMatcher.compile(baseDir.getFileSystem(), plainTextMasks), sizeThresholdMb, excludedDirectories,
+                sourceFileCache, ParsePlan.FULL);
+    }
+
+    ResourceParser(Path baseDir, Log logger, GlobMatcher exclusions, GlobMatcher plainTextMasks, int sizeThresholdMb, Collection<Path> excludedDirectories, @Nullable SourceFileCache sourceFileCache, ParsePlan parsePlan) {
         this.baseDir = baseDir;
         this.logger = logger;
-        this.exclusions = pathMatchers(baseDir, exclusions);
+        this.exclusions = exclusions;
         this.sizeThresholdMb = sizeThresholdMb;
         this.excludedDirectories = excludedDirectories;
-        this.plainTextMasks = pathMatchers(baseDir, plainTextMasks);
+        this.plainTextMasks = plainTextMasks;
+        this.sourceFileCache = sourceFileCache;
+        this.parsePlan = parsePlan;
     }
 
-    private Collection<PathMatcher> pathMatchers(Path basePath, Collection<String> pathExpressions) {
-        return pathExpressions.stream()
-                .map(o -> basePath.getFileSystem().getPathMatcher("glob:" + o))
-                .collect(Collectors.toList());
+    /**
+     * Walk the directory of a project once, collecting every file that resources or the java sources of
+     * {@code javaSourceDirectories} could later be parsed from.
+     */
+    public ProjectFileInventory inventory(Path projectDir, Collection<Path> javaSourceDirectories) throws IOException {
+        ProjectFileInventory inventory = new ProjectFileInventory(projectDir, javaSourceDirectories);
+        if (!projectDir.toFile().exists()) {
+            return inventory;
+        }
+        Deque<Boolean> resourceDirectories = new ArrayDeque<>();
+        Files.walkFileTree(projectDir, Collections.emptySet(), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                boolean resourceDirectory = (resourceDirectories.isEmpty() || resourceDirectories.peek()) &&
+                        !isSkippedDirectory(projectDir, dir);
+                if (!resourceDirectory && !inventory.isOnJavaSourcePath(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                resourceDirectories.push(resourceDirectory);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                inventory.add(file, attrs, !resourceDirectories.isEmpty() && resourceDirectories.peek());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, @Nullable IOException exc) throws IOException {
+                resourceDirectories.pop();
+                return super.postVisitDirectory(dir, exc);
+            }
+        });
+        return inventory;
     }
 
     public List<SourceFile> parse(Path searchDir, Collection<Path> alreadyParsed) {
+        return parse(null, searchDir, alreadyParsed);
+    }
+
+    /**
+     * Parse the resources below {@code searchDir}, taking them from the inventory instead of walking the file system
+     * when the inventory covers that directory.
+     */
+    public List<SourceFile> parse(@Nullable ProjectFileInventory inventory, Path searchDir, Collection<Path> alreadyParsed) {
         List<SourceFile> sourceFiles = new ArrayList<>();
         if (!searchDir.toFile().exists()) {
             return sourceFiles;
@@ -57,7 +115,9 @@ public class ResourceParser {
         InMemoryExecutionContext ctx = new InMemoryExecutionContext(errorConsumer);
 
         try {
-            sourceFiles.addAll(parseSourceFiles(searchDir, alreadyParsed, ctx));
+            sourceFiles.addAll(inventory != null && inventory.containsResources(searchDir) ?
+                    parseSourceFiles(inventory, searchDir, alreadyParsed, ctx) :
+                    parseSourceFiles(searchDir, alreadyParsed, ctx));
             List<PlainText> parseFailures = ParsingExecutionContextView.view(ctx).pollParseFailures();
             if(parseFailures.size() > 0) {
                 logger.warn("There were problems parsing " + parseFailures.size() + " + sources:");
@@ -75,19 +135,16 @@ public class ResourceParser {
         return sourceFiles;
     }
 
-    @SuppressWarnings({"DuplicatedCode", "unchecked"})
     public <S extends SourceFile> List<S> parseSourceFiles(
             Path searchDir,
             Collection<Path> alreadyParsed,
             ExecutionContext ctx) throws IOException {
 
-        List<Path> resources = new ArrayList<>();
-        List<Path> quarkPaths = new ArrayList<>();
-        List<Path> plainTextPaths = new ArrayList<>();
-        Files.walkFileTree(searchDir, Collections.emptySet(), 16, new SimpleFileVisitor<Path>() {
+        ClassifiedPaths paths = new ClassifiedPaths();
+        Files.walkFileTree(searchDir, Collections.emptySet(), ProjectFileInventory.MAX_DEPTH, new SimpleFileVisitor<Path>() {
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                if (isExcluded(dir) || isIgnoredDirectory(searchDir, dir) || excludedDirectories.contains(dir)) {
+                if (isSkippedDirectory(searchDir, dir)) {
                     return FileVisitResult.SKIP_SUBTREE;
                 }
                 return FileVisitResult.CONTINUE;
@@ -95,21 +152,32 @@ public class ResourceParser {
 
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                if (!attrs.isOther() && !attrs.isSymbolicLink() &&
-                        !alreadyParsed.contains(file) && !isExcluded(file)) {
-                    if (isOverSizeThreshold(attrs.size())) {
-                        logger.info("Parsing as quark " + file + " as its size + " + attrs.size() / (1024L * 1024L) +
-                                "Mb exceeds size threshold " + sizeThresholdMb + "Mb");
-                        quarkPaths.add(file);
-                    } else if (isParsedAsPlainText(file)) {
-                        plainTextPaths.add(file);
-                    } else {
-                        resources.add(file);
-                    }
-                }
+                paths.classify(file, attrs, alreadyParsed);
                 return FileVisitResult.CONTINUE;
             }
         });
+        return parseSourceFiles(paths, alreadyParsed, ctx);
+    }
+
+    public <S extends SourceFile> List<S> parseSourceFiles(
+            ProjectFileInventory inventory,
+            Path searchDir,
+            Collection<Path> alreadyParsed,
+            ExecutionContext ctx) {
+        ClassifiedPaths paths = new ClassifiedPaths();
+        inventory.forEachResource(searchDir, (file, attrs) -> paths.classify(file, attrs, alreadyParsed));
+        return parseSourceFiles(paths, alreadyParsed, ctx);
+    }
+
+    @SuppressWarnings({"DuplicatedCode", "unchecked"})
+    private <S extends SourceFile> List<S> parseSourceFiles(
+            ClassifiedPaths paths,
+            Collection<Path> alreadyParsed,
+            ExecutionContext ctx) {
+
+        List<Path> resources = paths.resources;
+        List<Path> quarkPaths = paths.quarkPaths;
+        List<Path> plainTextPaths = paths.plainTextPaths;
 
         List<S> sourceFiles = new ArrayList<>(resources.size() + quarkPaths.size());
 
@@ -153,61 +221,81 @@ public class ResourceParser {
             }
         });
 
-        sourceFiles.addAll((List<S>) jsonParser.parse(jsonPaths, baseDir, ctx));
+        sourceFiles.addAll((List<S>) parse(SourceKind.JSON, jsonParser, jsonPaths, ctx));
         alreadyParsed.addAll(jsonPaths);
 
-        sourceFiles.addAll((List<S>) xmlParser.parse(xmlPaths, baseDir, ctx));
+        sourceFiles.addAll((List<S>) parse(SourceKind.XML, xmlParser, xmlPaths, ctx));
         alreadyParsed.addAll(xmlPaths);
 
-        sourceFiles.addAll((List<S>) yamlParser.parse(yamlPaths, baseDir, ctx));
+        sourceFiles.addAll((List<S>) parse(SourceKind.YAML, yamlParser, yamlPaths, ctx));
         alreadyParsed.addAll(yamlPaths);
 
-        sourceFiles.addAll((List<S>) propertiesParser.parse(propertiesPaths, baseDir, ctx));
+        sourceFiles.addAll((List<S>) parse(SourceKind.PROPERTIES, propertiesParser, propertiesPaths, ctx));
         alreadyParsed.addAll(propertiesPaths);
 
-        sourceFiles.addAll((List<S>) protoParser.parse(protoPaths, baseDir, ctx));
+        sourceFiles.addAll((List<S>) parse(SourceKind.PROTO, protoParser, protoPaths, ctx));
         alreadyParsed.addAll(protoPaths);
 
-        sourceFiles.addAll((List<S>) hclParser.parse(hclPaths, baseDir, ctx));
+        sourceFiles.addAll((List<S>) parse(SourceKind.HCL, hclParser, hclPaths, ctx));
         alreadyParsed.addAll(hclPaths);
 
-        sourceFiles.addAll((List<S>) plainTextParser.parse(plainTextPaths, baseDir, ctx));
+        if (parsePlan.parses(SourceKind.OTHER)) {
+            sourceFiles.addAll((List<S>) plainTextParser.parse(mayChange(plainTextPaths), baseDir, ctx));
+            sourceFiles.addAll((List<S>) quarkParser.parse(quarkPaths, baseDir, ctx));
+        }
         alreadyParsed.addAll(plainTextPaths);
-
-        sourceFiles.addAll((List<S>) quarkParser.parse(quarkPaths, baseDir, ctx));
         alreadyParsed.addAll(quarkPaths);
 
         return sourceFiles;
     }
 
+    /**
+     * Plain text and quarks are not cached, reading them costs as much as computing their cache key.
+     */
+    private <S extends SourceFile> List<S> parse(SourceKind sourceKind, Parser<S> parser, List<Path> paths, ExecutionContext ctx) {
+        if (!parsePlan.parses(sourceKind)) {
+            return Collections.emptyList();
+        }
+        if (sourceFileCache == null) {
+            return parser.parse(mayChange(paths), baseDir, ctx);
+        }
+        return sourceFileCache.parse(parser, mayChange(paths), baseDir, ctx);
+    }
+
+    /**
+     * Quarks are never read, so they are not searched for the prefilter tokens either.
+     */
+    private List<Path> mayChange(List<Path> paths) {
+        if (!parsePlan.isPrefiltered()) {
+            return paths;
+        }
+        List<Path> mayChange = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            if (parsePlan.mayChange(path)) {
+                mayChange.add(path);
+            }
+        }
+        return mayChange;
+    }
+
+    private boolean isSkippedDirectory(Path searchDir, Path dir) {
+        return isExcluded(dir) || isIgnoredDirectory(searchDir, dir) || excludedDirectories.contains(dir);
+    }
+
     private boolean isOverSizeThreshold(long fileSize) {
         return sizeThresholdMb > 0 && fileSize > sizeThresholdMb * 1024L * 1024L;
     }
 
     private boolean isExcluded(Path path) {
-        if (!exclusions.isEmpty()) {
-            for (PathMatcher excluded : exclusions) {
-                if (excluded.matches(baseDir.relativize(path))) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return !exclusions.isEmpty() && exclusions.matches(baseDir.relativize(path));
     }
 
+    /**
+     * Masks are matched against the path relative to the base directory as if it were absolute, so that a mask like
+     * {@code **}{@code /*.txt} also matches files directly in the base directory.
+     */
     private boolean isParsedAsPlainText(Path path) {
-        if (!plainTextMasks.isEmpty()) {
-            Path computed = baseDir.relativize(path);
-            if (!computed.startsWith("/")) {
-                computed = Paths.get("/").resolve(computed);
-            }
-            for (PathMatcher matcher : plainTextMasks) {
-                if (matcher.matches(computed)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return !plainTextMasks.isEmpty() && plainTextMasks.matchesFromRoot(baseDir.relativize(path));
     }
 
     private boolean isIgnoredDirectory(Path searchDir, Path path) {
@@ -218,4 +306,28 @@ public class ResourceParser {
         }
         return false;
     }
+
+    /**
+     * The files found below a search directory, sorted by how they are going to be parsed.
+     */
+    private class ClassifiedPaths {
+        private final List<Path> resources = new ArrayList<>();
+        private final List<Path> quarkPaths = new ArrayList<>();
+        private final List<Path> plainTextPaths = new ArrayList<>();
+
+        void classify(Path file, BasicFileAttributes attrs, Collection<Path> alreadyParsed) {
+            if (!attrs.isOther() && !attrs.isSymbolicLink() &&
+                    !alreadyParsed.contains(file) && !isExcluded(file)) {
+                if (isOverSizeThreshold(attrs.size())) {
+                    logger.info("Parsing as quark " + file + " as its size + " + attrs.size() / (1024L * 1024L) +
+                            "Mb exceeds size threshold " + sizeThresholdMb + "Mb");
+                    quarkPaths.add(file);
+                } else if (isParsedAsPlainText(file)) {
+                    plainTextPaths.add(file);
+                } else {
+                    resources.add(file);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,528 @@
+package org.openrewrite.maven;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.tree.*;
+import org.rocksdb.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A pom cache on disk that several JVMs can use at the same time, e.g. the parallel builds of one CI agent.
+ * <p>
+ * RocksDB lets only one process open a database for writing, so the cache is split into shards, each a RocksDB
+ * database guarded by a lock file. Every JVM writes to the first shard it can lock and opens the others as secondary
+ * instances, which keep the files they read open while the JVM writing to the shard compacts it, and which catch up
+ * with what that JVM flushed at most once per {@link #CATCH_UP_INTERVAL} when a pom is not found. Poms are looked up
+ * in the writable shard first. A shard of another JVM that cannot be read counts as a miss, so the pom is downloaded.
+ * When all shards are locked by other JVMs, every shard is a secondary and newly downloaded poms are only kept in
+ * memory by the layer in front of this cache.
+ * <p>
+ * Like {@link org.openrewrite.maven.cache.RocksdbMavenPomCache}, only poms are kept on disk, along with which poms the
+ * repositories do not have. Hits and misses are counted by "rewrite.maven.pom.cache" meters with {@code layer=disk}. The static methods maintain the shards that
+ * no JVM has open.
+ */
+public class ShardedRocksdbMavenPomCache implements MavenPomCache, RawPomCache {
+    public static final int DEFAULT_SHARDS = 8;
+
+    static final Duration CATCH_UP_INTERVAL = Duration.ofSeconds(1);
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    @Nullable
+    private final Shard writable;
+
+    private final List<Shard> shards;
+
+    private final Duration missingTtl;
+
+    private final Counter hits = Metrics.counter(BoundedInMemoryPomCache.METER_NAME, "layer", "disk", "result", "hit");
+    private final Counter misses = Metrics.counter(BoundedInMemoryPomCache.METER_NAME, "layer", "disk", "result", "miss");
+
+    /**
+     * @param cacheDirectory The directory holding the shards, each in a numbered subdirectory.
+     * @param maxShards      The number of JVMs that can write to the cache at the same time.
+     */
+    public ShardedRocksdbMavenPomCache(Path cacheDirectory, int maxShards) {
+        this(cacheDirectory, maxShards, PomCacheSettings.DEFAULT_MISSING_TTL);
+    }
+
+    /**
+     * @param cacheDirectory The directory holding the shards, each in a numbered subdirectory.
+     * @param maxShards      The number of JVMs that can write to the cache at the same time.
+     * @param missingTtl     How long a pom the repositories do not have is not asked for again, or zero to ask for it
+     *                       again on every build.
+     */
+    public ShardedRocksdbMavenPomCache(Path cacheDirectory, int maxShards, Duration missingTtl) {
+        this.missingTtl = missingTtl;
+        try {
+            Files.createDirectories(cacheDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to find or create maven pom cache at " + cacheDirectory, e);
+        }
+
+        Shard writable = null;
+        List<Shard> shards = new ArrayList<>(maxShards);
+        try {
+            for (int i = 0; i < maxShards; i++) {
+                Path shardDirectory = cacheDirectory.resolve(Integer.toString(i));
+                if (writable == null) {
+                    writable = Shard.openWritable(shardDirectory);
+                    if (writable != null) {
+                        shards.add(writable);
+                        continue;
+                    }
+                }
+                Shard secondary = Shard.openSecondary(shardDirectory);
+                if (secondary != null) {
+                    shards.add(secondary);
+                }
+            }
+        } catch (RuntimeException e) {
+            shards.forEach(Shard::close);
+            throw e;
+        }
+        this.writable = writable;
+        this.shards = Collections.unmodifiableList(shards);
+    }
+
+    /**
+     * @return Whether this JVM holds one of the shards for writing, otherwise nothing it downloads is stored on disk.
+     */
+    public boolean isWritable() {
+        return writable != null;
+    }
+
+    @Override
+    public @Nullable ResolvedPom getResolvedDependencyPom(ResolvedGroupArtifactVersion dependency) {
+        return null;
+    }
+
+    @Override
+    public void putResolvedDependencyPom(ResolvedGroupArtifactVersion dependency, ResolvedPom resolved) {
+    }
+
+    @Override
+    public @Nullable Optional<MavenMetadata> getMavenMetadata(URI repo, GroupArtifactVersion gav) {
+        return null;
+    }
+
+    @Override
+    public void putMavenMetadata(URI repo, GroupArtifactVersion gav, MavenMetadata metadata) {
+    }
+
+    @Override
+    public @Nullable Optional<Pom> getPom(ResolvedGroupArtifactVersion gav) throws MavenDownloadingException {
+        byte[] key = PomCacheSerializer.key(gav);
+        for (Shard shard : shards) {
+            try {
+                byte[] value = shard.get(key);
+                // a pom missing too long ago may have been written to another shard since
+                Optional<Pom> pom = value == null ? null : PomCacheSerializer.read(value, missingTtl);
+                if (pom != null) {
+                    hits.increment();
+                    return pom;
+                }
+            } catch (RocksDBException e) {
+                if (shard != writable) {
+                    // another JVM's shard is only of use when it can be read, the pom is downloaded instead
+                    misses.increment();
+                    return null;
+                }
+                throw new MavenDownloadingException("Failed to read POM from RocksDB cache", e,
+                        new GroupArtifactVersion(gav.getGroupId(), gav.getArtifactId(), gav.getVersion()));
+            } catch (UncheckedIOException e) {
+                throw new MavenDownloadingException("Failed to deserialize POM from RocksDB cache", e,
+                        new GroupArtifactVersion(gav.getGroupId(), gav.getArtifactId(), gav.getVersion()));
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    public void putPom(ResolvedGroupArtifactVersion gav, @Nullable Pom pom) {
+        if (pom == null && missingTtl.isZero() || writable == null) {
+            return;
+        }
+        try {
+            writable.database.put(writable.writeOptions, PomCacheSerializer.key(gav), pom == null ?
+                    PomCacheSerializer.serializeMissing() : PomCacheSerializer.serialize(pom));
+        } catch (RocksDBException e) {
+            // the pom is still cached in memory
+        }
+    }
+
+    @Override
+    public void forEach(EntryConsumer consumer) throws IOException {
+        for (Shard shard : shards) {
+            try (RocksIterator iterator = shard.database.newIterator()) {
+                for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                    consumer.accept(iterator.key(), iterator.value());
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(byte[] key, byte[] value) {
+        if (writable == null) {
+            return false;
+        }
+        try {
+            for (Shard shard : shards) {
+                if (shard.get(key) != null) {
+                    return false;
+                }
+            }
+            writable.database.put(writable.writeOptions, key, value);
+            return true;
+        } catch (RocksDBException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public @Nullable Optional<MavenRepository> getNormalizedRepository(MavenRepository repository) {
+        return null;
+    }
+
+    @Override
+    public void putNormalizedRepository(MavenRepository repository, MavenRepository normalized) {
+    }
+
+    /**
+     * Flushes what was written to this JVM's shard and releases it for another JVM to write to.
+     */
+    @Override
+    public void close() {
+        shards.forEach(Shard::close);
+    }
+
+    /**
+     * @return What the shards hold, as of when the JVMs writing to them last flushed them.
+     */
+    public static PomCacheStatistics statistics(Path cacheDirectory) throws IOException {
+        PomCacheStatistics statistics = PomCacheStatistics.NONE;
+        for (Path shardDirectory : shardDirectories(cacheDirectory)) {
+            Shard shard = Shard.openSecondary(shardDirectory);
+            if (shard != null) {
+                try {
+                    statistics = statistics.plus(PomCacheEntry.statistics(shard.entries(), diskBytes(shardDirectory), 0));
+                } finally {
+                    shard.close();
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Removes the poms written before {@code expireBefore}, then the oldest poms until the rest take up at most
+     * {@code maxBytes}, and compacts the shards to free the disk space they took. Shards that other JVMs write to are
+     * left as they are.
+     *
+     * @return What was removed.
+     */
+    public static PomCacheStatistics prune(Path cacheDirectory, long expireBefore, long maxBytes) throws IOException {
+        return maintain(cacheDirectory, shards -> {
+            List<PomCacheEntry<Map.Entry<Shard, byte[]>>> entries = new ArrayList<>();
+            for (Shard shard : shards) {
+                for (PomCacheEntry<byte[]> entry : shard.entries()) {
+                    entries.add(new PomCacheEntry<>(new AbstractMap.SimpleImmutableEntry<>(shard, entry.location),
+                            entry.writtenAt, entry.bytes));
+                }
+            }
+            List<PomCacheEntry<Map.Entry<Shard, byte[]>>> pruned = PomCacheEntry.toPrune(entries, expireBefore, maxBytes);
+            for (PomCacheEntry<Map.Entry<Shard, byte[]>> entry : pruned) {
+                Shard shard = entry.location.getKey();
+                shard.database.delete(shard.writeOptions, entry.location.getValue());
+            }
+            return PomCacheEntry.statistics(pruned, 0, 0);
+        });
+    }
+
+    /**
+     * Compacts the shards that no other JVM writes to, freeing the disk space taken by poms that were overwritten.
+     *
+     * @return The disk space that was freed.
+     */
+    public static PomCacheStatistics compact(Path cacheDirectory) throws IOException {
+        return maintain(cacheDirectory, shards -> PomCacheStatistics.NONE);
+    }
+
+    private static PomCacheStatistics maintain(Path cacheDirectory, Maintenance maintenance) throws IOException {
+        List<Path> shardDirectories = shardDirectories(cacheDirectory);
+        List<Path> maintained = new ArrayList<>(shardDirectories.size());
+        List<Shard> shards = new ArrayList<>(shardDirectories.size());
+        long diskBytes = 0;
+        try {
+            for (Path shardDirectory : shardDirectories) {
+                Shard shard = Shard.openWritable(shardDirectory);
+                if (shard != null) {
+                    shards.add(shard);
+                    maintained.add(shardDirectory);
+                    diskBytes += diskBytes(shardDirectory);
+                }
+            }
+
+            PomCacheStatistics removed = maintenance.run(shards);
+            for (Shard shard : shards) {
+                shard.database.compactRange();
+            }
+            for (Shard shard : shards) {
+                shard.close();
+            }
+            shards.clear();
+
+            for (Path shardDirectory : maintained) {
+                diskBytes -= diskBytes(shardDirectory);
+            }
+            return new PomCacheStatistics(removed.getPoms(), removed.getBytes(), removed.getOldestWrittenAt(),
+                    diskBytes, shardDirectories.size() - maintained.size());
+        } catch (RocksDBException e) {
+            throw new IOException("Unable to maintain maven pom cache at " + cacheDirectory, e);
+        } finally {
+            shards.forEach(Shard::close);
+        }
+    }
+
+    /**
+     * The directories of the shards that were written to, which are the only ones worth maintaining.
+     */
+    private static List<Path> shardDirectories(Path cacheDirectory) throws IOException {
+        if (!Files.isDirectory(cacheDirectory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().matches("\\d+"))
+                    .filter(directory -> Files.exists(directory.resolve("CURRENT")))
+                    .sorted(Comparator.comparingInt(directory -> Integer.parseInt(directory.getFileName().toString())))
+                    .collect(toList());
+        }
+    }
+
+    private static long diskBytes(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            long bytes = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file)) {
+                    bytes += Files.size(file);
+                }
+            }
+            return bytes;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Maintenance {
+        PomCacheStatistics run(List<Shard> shards) throws RocksDBException;
+    }
+
+    private static final class Shard {
+        /**
+         * The lock files of the shards this class realm has locked. A shard is looked up here rather than probed with
+         * another channel on its lock file, as closing any channel on a file releases every lock the JVM holds on it.
+         */
+        private static final Set<Path> LOCKED = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        /**
+         * Channels on lock files that another class realm of this JVM has locked, which are kept open for the same
+         * reason, and the shard taken for locked until the JVM exits.
+         */
+        private static final List<FileChannel> PROBES = new CopyOnWriteArrayList<>();
+
+        private final RocksDB database;
+        private final Options options;
+
+        @Nullable
+        private final WriteOptions writeOptions;
+
+        @Nullable
+        private final FileLock lock;
+
+        @Nullable
+        private final Path lockFile;
+
+        /**
+         * Where a secondary instance keeps its own files, which are removed when it is closed.
+         */
+        @Nullable
+        private final Path secondaryDirectory;
+
+        private volatile long caughtUpAt = System.nanoTime();
+
+        private Shard(RocksDB database, Options options, @Nullable WriteOptions writeOptions,
+                      @Nullable FileLock lock, @Nullable Path lockFile, @Nullable Path secondaryDirectory) {
+            this.database = database;
+            this.options = options;
+            this.writeOptions = writeOptions;
+            this.lock = lock;
+            this.lockFile = lockFile;
+            this.secondaryDirectory = secondaryDirectory;
+        }
+
+        /**
+         * @return The shard, or {@code null} when another JVM, or another plugin class realm of this one, writes to it.
+         */
+        @Nullable
+        static Shard openWritable(Path directory) {
+            Path lockFile = directory.resolveSibling(directory.getFileName() + ".lock").toAbsolutePath().normalize();
+            if (!LOCKED.add(lockFile)) {
+                return null;
+            }
+            FileChannel channel = null;
+            FileLock lock;
+            try {
+                Files.createDirectories(directory);
+                // RocksDB's own LOCK file cannot be probed without failing to open, so the shard is claimed first.
+                channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // locked by another class realm of this JVM, whose lock closing the channel would release
+                PROBES.add(channel);
+                return null;
+            } catch (IOException e) {
+                closeQuietly(channel);
+                LOCKED.remove(lockFile);
+                throw new UncheckedIOException("Unable to lock maven pom cache at " + directory, e);
+            }
+            if (lock == null) {
+                // locked by another JVM, so this one holds no lock the channel could release
+                closeQuietly(channel);
+                LOCKED.remove(lockFile);
+                return null;
+            }
+
+            Options options = new Options()
+                    .setCreateIfMissing(true)
+                    .setWriteBufferSize(1_000_000)
+                    .setParanoidChecks(true)
+                    .setParanoidFileChecks(true);
+            WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+            try {
+                return new Shard(RocksDB.open(options, directory.toString()), options, writeOptions, lock, lockFile, null);
+            } catch (RocksDBException e) {
+                writeOptions.close();
+                options.close();
+                closeQuietly(channel);
+                LOCKED.remove(lockFile);
+                throw new IllegalStateException("Unable to create cache database. " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Opens a shard that another JVM may write to as a secondary instance, unlike a read-only one safe to read
+         * while that JVM compacts it.
+         *
+         * @return The shard, or {@code null} when it was never written to.
+         */
+        @Nullable
+        static Shard openSecondary(Path directory) {
+            if (!Files.exists(directory.resolve("CURRENT"))) {
+                return null;
+            }
+            // the files a secondary reads must stay open, as the JVM writing to the shard may delete them
+            Options options = new Options().setMaxOpenFiles(-1);
+            Path secondaryDirectory = null;
+            try {
+                secondaryDirectory = Files.createTempDirectory(directory.getParent(), directory.getFileName() + ".secondary-");
+                return new Shard(RocksDB.openAsSecondary(options, directory.toString(), secondaryDirectory.toString()),
+                        options, null, null, null, secondaryDirectory);
+            } catch (RocksDBException | IOException e) {
+                // being created by another JVM, or unreadable, either way it is of no use now
+                options.close();
+                deleteQuietly(secondaryDirectory);
+                return null;
+            }
+        }
+
+        @Nullable
+        byte[] get(byte[] key) throws RocksDBException {
+            byte[] value = database.get(key);
+            if (value == null && secondaryDirectory != null && System.nanoTime() - caughtUpAt > CATCH_UP_INTERVAL.toNanos()) {
+                caughtUpAt = System.nanoTime();
+                database.tryCatchUpWithPrimary();
+                value = database.get(key);
+            }
+            return value;
+        }
+
+        List<PomCacheEntry<byte[]>> entries() {
+            List<PomCacheEntry<byte[]>> entries = new ArrayList<>();
+            try (RocksIterator iterator = database.newIterator()) {
+                for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                    byte[] key = iterator.key();
+                    byte[] value = iterator.value();
+                    entries.add(new PomCacheEntry<>(key, PomCacheSerializer.writtenAt(value), key.length + value.length));
+                }
+            }
+            return entries;
+        }
+
+        void close() {
+            try {
+                if (writeOptions != null) {
+                    // Writes bypass the write ahead log, so they are only on disk once flushed.
+                    try (FlushOptions flush = new FlushOptions().setWaitForFlush(true)) {
+                        database.flush(flush);
+                    } catch (RocksDBException ignored) {
+                        // nothing more can be done while closing
+                    }
+                    writeOptions.close();
+                }
+                database.close();
+                options.close();
+            } finally {
+                if (lock != null) {
+                    closeQuietly(lock.channel());
+                    LOCKED.remove(lockFile);
+                }
+                deleteQuietly(secondaryDirectory);
+            }
+        }
+
+        private static void deleteQuietly(@Nullable Path directory) {
+            if (directory == null) {
+                return;
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException ignored) {
+                // only the logs of the secondary are left behind
+            }
+        }
+
+        private static void closeQuietly(@Nullable FileChannel channel) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // the lock is released when the JVM exits
+                }
+            }
+        }
+    }
+}
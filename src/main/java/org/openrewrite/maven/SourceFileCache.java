@@ -0,0 +1,251 @@
+package org.openrewrite.maven;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.ConstructorDetector;
+import com.fasterxml.jackson.databind.deser.std.FromStringDeserializer;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.maven.plugin.logging.Log;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.tree.ParsingExecutionContextView;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProtectionDomain;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of parsed source files, so that files which did not change since the last run are loaded instead
+ * of parsed again.
+ * <p>
+ * Entries are keyed by a hash of the file's content, its path relative to the project root, the parser (including the
+ * version of the library providing it) and the charset used to parse it. Any change to one of those results in a miss,
+ * and the stale entry is never read again. Entries are touched whenever they are read, so {@link #prune(Path, long)}
+ * removes the stale ones first.
+ */
+public class SourceFileCache {
+    private static final ObjectMapper mapper;
+
+    static {
+        mapper = JsonMapper.builder(new SmileFactory())
+                .constructorDetector(ConstructorDetector.USE_PROPERTIES_BASED)
+                .build()
+                .registerModule(new ParameterNamesModule())
+                // Jackson writes paths as absolute URIs by default, but source paths are relative to the project root
+                .registerModule(new SimpleModule().addSerializer(Path.class, ToStringSerializer.instance)
+                        // the times of the file attributes some parsers record, without needing jackson-datatype-jsr310
+                        .addSerializer(ZonedDateTime.class, ToStringSerializer.instance)
+                        .addDeserializer(ZonedDateTime.class, new FromStringDeserializer<ZonedDateTime>(ZonedDateTime.class) {
+                            @Override
+                            protected ZonedDateTime _deserialize(String value, DeserializationContext ctxt) {
+                                return ZonedDateTime.parse(value);
+                            }
+                        }))
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker()
+                .withCreatorVisibility(JsonAutoDetect.Visibility.PUBLIC_ONLY)
+                .withGetterVisibility(JsonAutoDetect.Visibility.NONE)
+                .withIsGetterVisibility(JsonAutoDetect.Visibility.NONE)
+                .withFieldVisibility(JsonAutoDetect.Visibility.ANY));
+    }
+
+    private final Path cacheDirectory;
+    private final Log logger;
+    private final Counter hits;
+    private final Counter misses;
+
+    public SourceFileCache(Path cacheDirectory, Log logger) {
+        this.cacheDirectory = cacheDirectory;
+        this.logger = logger;
+        this.hits = Metrics.counter("rewrite.maven.lst.cache", "result", "hit");
+        this.misses = Metrics.counter("rewrite.maven.lst.cache", "result", "miss");
+    }
+
+    /**
+     * Parse the given paths, loading unchanged source files from the cache and storing the ones that had to be parsed.
+     * Source files are returned in the order of {@code sourcePaths}, just like {@link Parser#parse(Iterable, Path, ExecutionContext)}
+     * would return them.
+     */
+    @SuppressWarnings("unchecked")
+    public <S extends SourceFile> List<S> parse(Parser<S> parser, List<Path> sourcePaths, Path relativeTo, ExecutionContext ctx) {
+        if (sourcePaths.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Charset charset = ParsingExecutionContextView.view(ctx).getCharset();
+        Map<Path, S> sourceFilesByPath = new HashMap<>();
+        Map<Path, String> keysToStore = new LinkedHashMap<>();
+        for (Path sourcePath : sourcePaths) {
+            String key = key(parser, sourcePath, relativeTo, charset);
+            S cached = key == null ? null : (S) read(key);
+            if (cached == null) {
+                misses.increment();
+                keysToStore.put(sourcePath, key);
+            } else {
+                hits.increment();
+                sourceFilesByPath.put(sourcePath, cached);
+            }
+        }
+
+        if (!keysToStore.isEmpty()) {
+            for (S parsed : parser.parse(keysToStore.keySet(), relativeTo, ctx)) {
+                Path sourcePath = relativeTo.resolve(parsed.getSourcePath());
+                sourceFilesByPath.put(sourcePath, parsed);
+                String key = keysToStore.get(sourcePath);
+                if (key != null) {
+                    write(key, parsed);
+                }
+            }
+        }
+
+        List<S> sourceFiles = new ArrayList<>(sourceFilesByPath.size());
+        for (Path sourcePath : sourcePaths) {
+            S sourceFile = sourceFilesByPath.get(sourcePath);
+            if (sourceFile != null) {
+                sourceFiles.add(sourceFile);
+            }
+        }
+        return sourceFiles;
+    }
+
+    @Nullable
+    private String key(Parser<?> parser, Path sourcePath, Path relativeTo, @Nullable Charset charset) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(parserVersion(parser).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update((charset == null ? "" : charset.name()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(relativeTo.relativize(sourcePath).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(sourcePath));
+
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            logger.debug("Unable to compute the cache key of " + sourcePath, e);
+            return null;
+        }
+    }
+
+    /**
+     * The tree model of a parser's output can change from one release to the next, so the location of the library
+     * providing the parser, which includes its version, is part of every key.
+     */
+    private static String parserVersion(Parser<?> parser) {
+        ProtectionDomain protectionDomain = parser.getClass().getProtectionDomain();
+        if (protectionDomain != null && protectionDomain.getCodeSource() != null &&
+            protectionDomain.getCodeSource().getLocation() != null) {
+            return parser.getClass().getName() + "@" + protectionDomain.getCodeSource().getLocation();
+        }
+        return parser.getClass().getName();
+    }
+
+    private Path entry(String key) {
+        return cacheDirectory.resolve(key.substring(0, 2)).resolve(key + ".lst");
+    }
+
+    @Nullable
+    private SourceFile read(String key) {
+        Path entry = entry(key);
+        if (!Files.exists(entry)) {
+            return null;
+        }
+        try {
+            SourceFile sourceFile = mapper.readValue(Files.readAllBytes(entry), SourceFile.class);
+            try {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException ignored) {
+                // pruned a little earlier than it could be
+            }
+            return sourceFile;
+        } catch (Exception e) {
+            logger.debug("Discarding unreadable cache entry " + entry, e);
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException ignored) {
+                // a later write will replace it
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Removes the entries read or written longest ago until the rest take up at most {@code maxBytes}.
+     *
+     * @return The number of entries removed.
+     */
+    public static int prune(Path cacheDirectory, long maxBytes) throws IOException {
+        if (!Files.isDirectory(cacheDirectory)) {
+            return 0;
+        }
+        List<Path> entries;
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        try (Stream<Path> files = Files.walk(cacheDirectory, 2)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(".lst")).collect(Collectors.toList());
+        }
+        long bytes = 0;
+        for (Path entry : entries) {
+            BasicFileAttributes entryAttributes = Files.readAttributes(entry, BasicFileAttributes.class);
+            attributes.put(entry, entryAttributes);
+            bytes += entryAttributes.size();
+        }
+        entries.sort(Comparator.comparing(entry -> attributes.get(entry).lastModifiedTime()));
+
+        int removed = 0;
+        for (Iterator<Path> oldest = entries.iterator(); bytes > maxBytes && oldest.hasNext(); ) {
+            Path entry = oldest.next();
+            if (Files.deleteIfExists(entry)) {
+                removed++;
+            }
+            bytes -= attributes.get(entry).size();
+        }
+        return removed;
+    }
+
+    private void write(String key, SourceFile sourceFile) {
+        Path entry = entry(key);
+        try {
+            Files.createDirectories(entry.getParent());
+            // Write to a temporary file first, so that concurrent readers never see a partially written entry.
+            Path temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            try {
+                Files.write(temp, mapper.writerFor(SourceFile.class).writeValueAsBytes(sourceFile));
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to cache " + sourceFile.getSourcePath(), e);
+        }
+    }
+}
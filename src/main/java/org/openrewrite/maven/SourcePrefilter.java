@@ -0,0 +1,98 @@
+package org.openrewrite.maven;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Tells the files the active recipes cannot change apart from the others by the literal text the recipes look for,
+ * e.g. the fully qualified name of the type a ChangeType recipe renames, or the artifactId a dependency upgrade
+ * changes. A file containing none of the tokens is not worth parsing.
+ * <p>
+ * Files are searched byte by byte for the tokens encoded as UTF-8, which finds them in files of any ASCII compatible
+ * encoding. Large files are read in chunks, each searched together with the end of the chunk before, in which a token
+ * may begin. They are not memory-mapped, as a mapping outlives the search until it is garbage collected, and keeps the
+ * file from being written back by rewrite:run on Windows meanwhile.
+ */
+final class SourcePrefilter {
+    static final SourcePrefilter NONE = new SourcePrefilter(Collections.emptyList());
+
+    static final int CHUNK_BYTES = 64 * 1024;
+
+    private final byte[][] tokens;
+
+    /**
+     * The bytes carried over from one chunk to the next, one less than the longest token.
+     */
+    private final int overlap;
+
+    SourcePrefilter(Collection<String> tokens) {
+        this.tokens = tokens.stream()
+                .map(String::trim)
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .map(token -> token.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        this.overlap = Arrays.stream(this.tokens).mapToInt(token -> token.length - 1).max().orElse(0);
+    }
+
+    boolean isEnabled() {
+        return tokens.length > 0;
+    }
+
+    /**
+     * @return Whether the file contains one of the tokens, or cannot be read, which is left to its parser to report.
+     */
+    boolean mayMatch(Path file) {
+        if (!isEnabled()) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(Math.max(channel.size(), 1), CHUNK_BYTES) + overlap);
+            int carried = 0;
+            while (true) {
+                int read = channel.read(chunk);
+                chunk.flip();
+                if (chunk.limit() > carried) {
+                    for (byte[] token : tokens) {
+                        if (contains(chunk, token)) {
+                            return true;
+                        }
+                    }
+                }
+                if (read < 0) {
+                    return false;
+                }
+                carried = Math.min(overlap, chunk.limit());
+                chunk.position(chunk.limit() - carried);
+                chunk.compact();
+            }
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    static boolean contains(ByteBuffer content, byte[] token) {
+        byte first = token[0];
+        int last = content.limit() - token.length;
+        for (int i = 0; i <= last; i++) {
+            if (content.get(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < token.length && content.get(i + j) == token[j]) {
+                j++;
+            }
+            if (j == token.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,161 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.*;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.NoRepositoryConnectorException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArtifactResolverTest {
+
+    @Test
+    void artifactsAreResolvedWithTheirDependencies(@TempDir Path temp) throws Exception {
+        Path repository = temp.resolve("repository");
+        deploy(repository, "recipes", "<dependencies><dependency>" +
+                                      "<groupId>org.example</groupId><artifactId>support</artifactId><version>1.0</version>" +
+                                      "</dependency><dependency>" +
+                                      "<groupId>org.example</groupId><artifactId>tested</artifactId><version>1.0</version><scope>test</scope>" +
+                                      "</dependency></dependencies>");
+        deploy(repository, "support", "");
+
+        Set<Artifact> resolved = resolver(temp, repository).resolveArtifactsAndDependencies(Collections.singleton(artifact("recipes")));
+
+        assertThat(resolved).extracting(Artifact::getArtifactId).containsExactlyInAnyOrder("recipes", "support");
+        for (Artifact artifact : resolved) {
+            assertThat(artifact.getFile()).exists();
+            assertThat(artifact.getFile().toPath()).startsWith(temp.resolve("local"));
+        }
+    }
+
+    @Test
+    void missingArtifactsFailTheResolution(@TempDir Path temp) throws Exception {
+        Path repository = Files.createDirectories(temp.resolve("repository"));
+
+        assertThatThrownBy(() -> resolver(temp, repository).resolveArtifactsAndDependencies(Collections.singleton(artifact("recipes"))))
+                .isInstanceOf(MojoExecutionException.class);
+    }
+
+    private static ArtifactResolver resolver(Path temp, Path repository) {
+        DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+        locator.addService(RepositoryConnectorFactory.class, FileRepositoryConnectorFactory.class);
+        RepositorySystem repositorySystem = locator.getService(RepositorySystem.class);
+
+        DefaultRepositorySystemSession repositorySession = MavenRepositorySystemUtils.newSession();
+        repositorySession.setLocalRepositoryManager(repositorySystem.newLocalRepositoryManager(repositorySession,
+                new LocalRepository(temp.resolve("local").toFile())));
+        MavenProject project = new MavenProject(new Model());
+        ArtifactRepositoryPolicy policy = new ArtifactRepositoryPolicy(true, ArtifactRepositoryPolicy.UPDATE_POLICY_NEVER,
+                ArtifactRepositoryPolicy.CHECKSUM_POLICY_IGNORE);
+        project.setRemoteArtifactRepositories(Collections.singletonList(new MavenArtifactRepository("file",
+                repository.toUri().toString(), new DefaultRepositoryLayout(), policy, policy)));
+        MavenSession session = new MavenSession(null, repositorySession, new DefaultMavenExecutionRequest(),
+                new DefaultMavenExecutionResult());
+        session.setCurrentProject(project);
+        return new ArtifactResolver(null, repositorySystem, session);
+    }
+
+    private static Artifact artifact(String artifactId) {
+        return new DefaultArtifact("org.example", artifactId, "1.0", "runtime", "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    private static void deploy(Path repository, String artifactId, String dependencies) throws IOException {
+        Path directory = Files.createDirectories(repository.resolve("org/example/" + artifactId + "/1.0"));
+        Files.write(directory.resolve(artifactId + "-1.0.pom"), ("<project><modelVersion>4.0.0</modelVersion>" +
+                                                                 "<groupId>org.example</groupId><artifactId>" + artifactId + "</artifactId><version>1.0</version>" +
+                                                                 dependencies +
+                                                                 "</project>").getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve(artifactId + "-1.0.jar"), new byte[0]);
+    }
+
+    /**
+     * Copies artifacts from {@code file:} repositories, as the connector and transport of a maven installation would.
+     */
+    public static class FileRepositoryConnectorFactory implements RepositoryConnectorFactory {
+        @Override
+        public RepositoryConnector newInstance(RepositorySystemSession session, RemoteRepository repository) throws NoRepositoryConnectorException {
+            if (!repository.getUrl().startsWith("file:")) {
+                throw new NoRepositoryConnectorException(repository);
+            }
+            Path root = Paths.get(URI.create(repository.getUrl()));
+            return new RepositoryConnector() {
+                @Override
+                public void get(Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads) {
+                    if (artifactDownloads != null) {
+                        for (ArtifactDownload download : artifactDownloads) {
+                            org.eclipse.aether.artifact.Artifact artifact = download.getArtifact();
+                            Path source = root.resolve(artifact.getGroupId().replace('.', '/'))
+                                    .resolve(artifact.getArtifactId())
+                                    .resolve(artifact.getBaseVersion())
+                                    .resolve(artifact.getArtifactId() + "-" + artifact.getVersion() +
+                                             (artifact.getClassifier().isEmpty() ? "" : "-" + artifact.getClassifier()) +
+                                             "." + artifact.getExtension());
+                            try {
+                                Files.createDirectories(download.getFile().toPath().getParent());
+                                Files.copy(source, download.getFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+                            } catch (NoSuchFileException e) {
+                                download.setException(new ArtifactNotFoundException(artifact, repository));
+                            } catch (IOException e) {
+                                download.setException(new ArtifactTransferException(artifact, repository, e));
+                            }
+                        }
+                    }
+                    if (metadataDownloads != null) {
+                        for (MetadataDownload download : metadataDownloads) {
+                            download.setException(new MetadataNotFoundException(download.getMetadata(), repository));
+                        }
+                    }
+                }
+
+                @Override
+                public void put(Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public float getPriority() {
+            return 0;
+        }
+    }
+}
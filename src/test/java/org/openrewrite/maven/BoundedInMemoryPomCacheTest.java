@@ -0,0 +1,39 @@
+package org.openrewrite.maven;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.maven.cache.InMemoryMavenPomCache;
+import org.openrewrite.maven.tree.MavenRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedInMemoryPomCacheTest {
+
+    @Test
+    void evictsBeyondMaxEntriesAndCountsHitsAndMisses() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        InMemoryMavenPomCache cache = BoundedInMemoryPomCache.create(2, registry);
+
+        for (int i = 0; i < 10; i++) {
+            MavenRepository repository = repository(i);
+            cache.putNormalizedRepository(repository, repository);
+        }
+        assertThat(cache.getNormalizedRepository(repository(9))).isNotNull();
+        assertThat(cache.getNormalizedRepository(repository(100))).isNull();
+        cache.getNormalizedRepository(repository(9));
+
+        assertThat(registry.get("rewrite.maven.pom.cache.size").tag("cache", "repository").gauge().value())
+                .isLessThanOrEqualTo(2);
+        assertThat(registry.get("rewrite.maven.pom.cache.evictions").tag("cache", "repository").functionCounter().count())
+                .isGreaterThan(0);
+        assertThat(registry.get("rewrite.maven.pom.cache").tags("cache", "repository", "result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("rewrite.maven.pom.cache").tags("cache", "repository", "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    private static MavenRepository repository(int i) {
+        return new MavenRepository("repo-" + i, "https://repo" + i + ".example.com/maven2", true, true, null, null);
+    }
+}
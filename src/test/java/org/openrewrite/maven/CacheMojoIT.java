@@ -0,0 +1,36 @@
+package org.openrewrite.maven;
+
+import com.soebes.itf.jupiter.extension.*;
+import com.soebes.itf.jupiter.maven.MavenExecutionResult;
+
+import static com.soebes.itf.extension.assertj.MavenITAssertions.assertThat;
+
+@MavenJupiterExtension
+@MavenOption(MavenCLIOptions.NO_TRANSFER_PROGRESS)
+@SuppressWarnings("NewClassNamingConvention")
+public class CacheMojoIT {
+
+    @MavenTest
+    @MavenGoal("${project.groupId}:${project.artifactId}:${project.version}:cyclonedx")
+    @MavenGoal("${project.groupId}:${project.artifactId}:${project.version}:cache")
+    void cache_statistics(MavenExecutionResult result) {
+        assertThat(result)
+                .isSuccessful()
+                .out()
+                .info()
+                .anySatisfy(line -> assertThat(line).contains("Maven pom cache at"));
+
+        assertThat(result).out().warn().isEmpty();
+    }
+
+    @MavenTest
+    @MavenGoal("${project.groupId}:${project.artifactId}:${project.version}:cache")
+    @SystemProperty(value = "mode", content = "prune")
+    void prune_without_limits(MavenExecutionResult result) {
+        assertThat(result)
+                .isFailure()
+                .out()
+                .error()
+                .anySatisfy(line -> assertThat(line).contains("Set maxAgeDays and/or maxSizeMb"));
+    }
+}
@@ -0,0 +1,148 @@
+package org.openrewrite.maven;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.HttpSenderExecutionContextView;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.ipc.http.HttpSender;
+import org.openrewrite.ipc.http.HttpUrlConnectionSender;
+import org.openrewrite.maven.cache.InMemoryMavenPomCache;
+import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.internal.MavenPomDownloader;
+import org.openrewrite.maven.tree.GroupArtifactVersion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FailFastHttpSenderTest {
+    private static final String MISSING = "/repository/org/example/missing/1.0/missing-1.0.pom";
+    private static final String SLOW = "/repository/org/example/slow/1.0/slow-1.0.pom";
+    private static final String BROKEN = "/repository/org/example/broken/1.0/broken-1.0.pom";
+    private static final String SECURED = "/repository/org/example/secured/1.0/secured-1.0.pom";
+
+    /**
+     * Stands in for a remote repository, which has no poms, is slow to answer for some, fails for others, and refuses
+     * the credentials it is given for one that it serves anonymously.
+     */
+    private HttpServer repository;
+    private ExecutorService handlers;
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startRepository() throws IOException {
+        handlers = Executors.newCachedThreadPool();
+        repository = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        repository.setExecutor(handlers);
+        repository.createContext("/repository", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            try {
+                if (path.equals(SLOW)) {
+                    Thread.sleep(2_000);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int code = 404;
+            if (path.equals("/repository/")) {
+                code = 200;
+            } else if (path.equals(BROKEN)) {
+                code = 500;
+            } else if (path.equals(SECURED)) {
+                code = exchange.getRequestHeaders().containsKey("Authorization") ? 401 : 200;
+            }
+            byte[] body = "<project/>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        repository.start();
+    }
+
+    @AfterEach
+    void stopRepository() {
+        repository.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    void requestsThatFailedAreNotSentAgain(@TempDir Path temp) {
+        HttpSender sender = new FailFastHttpSender(new HttpUrlConnectionSender(Duration.ofSeconds(1), Duration.ofMillis(200)), false);
+
+        // each module of a reactor resolves with its own downloader
+        for (int module = 0; module < 2; module++) {
+            ExecutionContext ctx = ctx(temp, sender, new InMemoryMavenPomCache());
+            assertThatThrownBy(() -> download(ctx, "missing")).isInstanceOf(MavenDownloadingException.class);
+            assertThatThrownBy(() -> download(ctx, "slow")).isInstanceOf(MavenDownloadingException.class);
+            assertThatThrownBy(() -> download(ctx, "broken")).isInstanceOf(MavenDownloadingException.class);
+        }
+        assertThat(requests.get(SLOW)).hasValue(1);
+        assertThat(requests.get(BROKEN)).hasValue(1);
+        // missing poms are remembered by the pom cache, which each module here has one of
+        assertThat(requests.get(MISSING)).hasValue(2);
+    }
+
+    @Test
+    void refusedCredentialsAreNotRemembered() {
+        HttpSender sender = new FailFastHttpSender(new HttpUrlConnectionSender(), false);
+        String url = "http://localhost:" + repository.getAddress().getPort() + SECURED;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try (HttpSender.Response authenticated = sender.get(url).withBasicAuthentication("user", "wrong").send()) {
+                assertThat(authenticated.getCode()).isEqualTo(401);
+            }
+            // as rewrite retries a request whose credentials are refused
+            try (HttpSender.Response anonymous = sender.get(url).send()) {
+                assertThat(anonymous.getCode()).isEqualTo(200);
+            }
+        }
+        assertThat(requests.get(SECURED)).hasValue(4);
+    }
+
+    @Test
+    void nothingIsSentToRemoteRepositoriesOffline(@TempDir Path temp) throws Exception {
+        MavenPomCache pomCache = new InMemoryMavenPomCache();
+        HttpSender offline = new FailFastHttpSender(new HttpUrlConnectionSender(), true);
+        assertThatThrownBy(() -> download(ctx(temp, offline, pomCache), "missing")).isInstanceOf(MavenDownloadingException.class);
+        assertThat(requests).isEmpty();
+
+        // neither the pom nor the repository is taken for missing by a later build that is online
+        HttpSender online = new FailFastHttpSender(new HttpUrlConnectionSender(), false);
+        assertThatThrownBy(() -> download(ctx(temp, online, pomCache), "missing")).isInstanceOf(MavenDownloadingException.class);
+        assertThat(requests.get(MISSING)).hasValue(1);
+    }
+
+    private ExecutionContext ctx(Path temp, HttpSender sender, MavenPomCache pomCache) {
+        ExecutionContext ctx = new InMemoryExecutionContext(t -> {
+        });
+        MavenSettings.Mirrors mirrors = new MavenSettings.Mirrors(Collections.singletonList(new MavenSettings.Mirror(
+                "stand-in", "http://localhost:" + repository.getAddress().getPort() + "/repository", "*", null, null)));
+        MavenExecutionContextView.view(ctx)
+                .setMavenSettings(new MavenSettings(temp.resolve("local").toString(), null, null, mirrors, null))
+                .setPomCache(pomCache);
+        HttpSenderExecutionContextView.view(ctx).setHttpSender(sender);
+        return ctx;
+    }
+
+    private static void download(ExecutionContext ctx, String artifactId) throws MavenDownloadingException {
+        new MavenPomDownloader(Collections.emptyMap(), ctx)
+                .download(new GroupArtifactVersion("org.example", artifactId, "1.0"), null, null, Collections.emptyList());
+    }
+}
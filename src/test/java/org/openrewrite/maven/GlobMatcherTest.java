@@ -0,0 +1,59 @@
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobMatcherTest {
+    private static final FileSystem FS = FileSystems.getDefault();
+
+    private static final List<String> GLOBS = Arrays.asList(
+            "**/node_modules/**", "**/*.min.js", "src/main/generated/**", "**/target/**", "*.md", "**",
+            "**/a/**/b", "a/*/c", "a?/b", "**/[a-c]*.xml", "**/*.{yml,yaml}", "**.java", "{a/b,c}/**",
+            "docs/[!x]*", "**/file\\*.txt", "/**/*.txt", "/root.txt", "a/**", "**/b", "src/**/test/*.json",
+            "{src,docs}/*.md", "[\\]/*"
+    );
+
+    private static final List<String> PATHS = Arrays.asList(
+            "", "README.md", "a/README.md", "node_modules/x.js", "web/node_modules/x/y.js", "web/app.min.js",
+            "app.min.js", "src/main/generated/A.java", "src/main/generated", "module/target/classes/a.xml",
+            "a/b", "a/x/b", "a/x/y/b", "b", "a/b/c", "a/x/c", "ab/b", "a/b/b.xml", "cfg/d.xml", "config.yml",
+            "src/main/resources/application.yaml", "src/main/java/A.java", "c/d", "docs/a", "docs/x",
+            "dir/file*.txt", "dir/fileA.txt", "root.txt", "notes/readme.txt", "src/a/test/b.json",
+            "src/test/b.json", "docs/guide.md", "src/index.md", "a", "x/b", "x/y/b"
+    );
+
+    @Test
+    void matchesLikeTheJdk() {
+        for (String glob : GLOBS) {
+            GlobMatcher compiled = GlobMatcher.compile(FS, Collections.singletonList(glob));
+            PathMatcher jdk = FS.getPathMatcher("glob:" + glob);
+            for (String path : PATHS) {
+                Path relative = Paths.get(path);
+                assertThat(compiled.matches(relative))
+                        .as("%s matches %s", glob, path)
+                        .isEqualTo(jdk.matches(relative));
+                assertThat(compiled.matchesFromRoot(relative))
+                        .as("%s matches /%s", glob, path)
+                        .isEqualTo(jdk.matches(Paths.get("/").resolve(relative)));
+            }
+        }
+    }
+
+    @Test
+    void matchesAnyOfManyGlobs() {
+        GlobMatcher compiled = GlobMatcher.compile(FS, GLOBS.subList(0, 5));
+        assertThat(compiled.matches(Paths.get("web/node_modules/x/y.js"))).isTrue();
+        assertThat(compiled.matches(Paths.get("README.md"))).isTrue();
+        assertThat(compiled.matches(Paths.get("src/main/java/A.java"))).isFalse();
+    }
+}
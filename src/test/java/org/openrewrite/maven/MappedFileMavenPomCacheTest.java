@@ -0,0 +1,175 @@
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.Pom;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedFileMavenPomCacheTest {
+
+    @Test
+    void pomsAppendedByOneUserAreSeenByTheOthers(@TempDir Path cacheDirectory) throws Exception {
+        Pom a = pom("a");
+        Pom b = pom("b");
+        try (MappedFileMavenPomCache first = new MappedFileMavenPomCache(cacheDirectory);
+             MappedFileMavenPomCache second = new MappedFileMavenPomCache(cacheDirectory)) {
+            assertThat(second.getPom(a.getGav())).isNull();
+            first.putPom(a.getGav(), a);
+            assertThat(second.getPom(a.getGav())).map(Pom::getGav).hasValue(a.getGav());
+        }
+
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            assertThat(cache.getPom(a.getGav())).map(Pom::getGav).hasValue(a.getGav());
+            cache.putPom(b.getGav(), b);
+            assertThat(cache.getPom(b.getGav())).map(Pom::getGav).hasValue(b.getGav());
+        }
+    }
+
+    @Test
+    void incompleteRecordIsOverwritten(@TempDir Path cacheDirectory) throws Exception {
+        Pom a = pom("a");
+        Pom b = pom("b");
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            cache.putPom(a.getGav(), a);
+        }
+        // as left by a JVM that died while appending
+        Files.write(cacheDirectory.resolve("poms.log"), new byte[]{0, 0, 0, 10, 0, 0, 1, 0, 42},
+                StandardOpenOption.APPEND);
+
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            assertThat(cache.getPom(a.getGav())).map(Pom::getGav).hasValue(a.getGav());
+            cache.putPom(b.getGav(), b);
+        }
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            assertThat(cache.getPom(a.getGav())).map(Pom::getGav).hasValue(a.getGav());
+            assertThat(cache.getPom(b.getGav())).map(Pom::getGav).hasValue(b.getGav());
+        }
+    }
+
+    @Test
+    void recordsAreReadAcrossTheWindowsTheLogIsMappedIn(@TempDir Path cacheDirectory) throws Exception {
+        // records larger than a third of a window, so that some span two windows and the last is beyond the mapped ones
+        byte[] value = new byte[MappedFileMavenPomCache.WINDOW_BYTES / 3 + 7];
+        Map<String, byte[]> records = new HashMap<>();
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            for (int i = 0; i < 8; i++) {
+                Arrays.fill(value, (byte) i);
+                records.put("record" + i, value.clone());
+                assertThat(cache.putIfAbsent(("record" + i).getBytes(StandardCharsets.UTF_8), value)).isTrue();
+            }
+            assertThat(entries(cache)).containsOnlyKeys(records.keySet());
+        }
+        assertThat(Files.size(cacheDirectory.resolve("poms.log"))).isGreaterThan(2L * MappedFileMavenPomCache.WINDOW_BYTES);
+
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            Map<String, byte[]> entries = entries(cache);
+            assertThat(entries).containsOnlyKeys(records.keySet());
+            records.forEach((key, expected) -> assertThat(entries.get(key)).isEqualTo(expected));
+        }
+    }
+
+    @Test
+    void missingPomsAreRememberedUntilTheyAreTooOld(@TempDir Path cacheDirectory) throws Exception {
+        Pom a = pom("a");
+        Pom b = pom("b");
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory, Duration.ofHours(1))) {
+            cache.putPom(a.getGav(), null);
+            cache.putPom(b.getGav(), null);
+            cache.putPom(b.getGav(), b);
+        }
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory, Duration.ofHours(1))) {
+            assertThat(cache.getPom(a.getGav())).isEmpty();
+            assertThat(cache.getPom(b.getGav())).map(Pom::getGav).hasValue(b.getGav());
+        }
+
+        Thread.sleep(10);
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory, Duration.ofMillis(5))) {
+            assertThat(cache.getPom(a.getGav())).isNull();
+        }
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory.resolve("disabled"), Duration.ZERO)) {
+            cache.putPom(a.getGav(), null);
+            assertThat(cache.getPom(a.getGav())).isNull();
+        }
+    }
+
+    @Test
+    void compactedWhenOpenedByItsOnlyUser(@TempDir Path cacheDirectory) throws Exception {
+        Pom a = pom("a");
+        Pom b = pom("b");
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            for (int i = 0; i < 10; i++) {
+                cache.putPom(a.getGav(), a);
+            }
+            cache.putPom(b.getGav(), b);
+        }
+        Path log = cacheDirectory.resolve("poms.log");
+        long size = Files.size(log);
+
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            assertThat(Files.size(log)).isLessThan(size / 4);
+            assertThat(cache.getPom(a.getGav())).map(Pom::getGav).hasValue(a.getGav());
+            assertThat(cache.getPom(b.getGav())).map(Pom::getGav).hasValue(b.getGav());
+        }
+    }
+
+    @Test
+    void pruneRemovesOldPomsAndThenTheOldestBeyondTheSizeCap(@TempDir Path cacheDirectory) throws Exception {
+        Pom a = pom("a");
+        Pom b = pom("b");
+        Pom c = pom("c");
+        long expireBefore;
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            cache.putPom(a.getGav(), a);
+            Thread.sleep(10);
+            expireBefore = System.currentTimeMillis();
+            Thread.sleep(10);
+            cache.putPom(b.getGav(), b);
+            Thread.sleep(10);
+            cache.putPom(c.getGav(), c);
+        }
+        PomCacheStatistics before = MappedFileMavenPomCache.statistics(cacheDirectory);
+        assertThat(before.getPoms()).isEqualTo(3);
+
+        PomCacheStatistics removed = MappedFileMavenPomCache.prune(cacheDirectory, expireBefore, before.getBytes() / 3 + 1);
+        assertThat(removed.getPoms()).isEqualTo(2);
+        assertThat(removed.getDiskBytes()).isPositive();
+
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(cacheDirectory)) {
+            assertThat(cache.getPom(a.getGav())).isNull();
+            assertThat(cache.getPom(b.getGav())).isNull();
+            assertThat(cache.getPom(c.getGav())).map(Pom::getGav).hasValue(c.getGav());
+
+            // the log this JVM uses is left as it is
+            assertThat(MappedFileMavenPomCache.compact(cacheDirectory).getStoresInUse()).isEqualTo(1);
+        }
+    }
+
+    private static Map<String, byte[]> entries(MappedFileMavenPomCache cache) throws Exception {
+        Map<String, byte[]> entries = new HashMap<>();
+        cache.forEach((key, value) -> entries.put(new String(key, StandardCharsets.UTF_8), value));
+        return entries;
+    }
+
+    private static Pom pom(String artifactId) {
+        String xml = "<project>" +
+                     "<groupId>org.example</groupId>" +
+                     "<artifactId>" + artifactId + "</artifactId>" +
+                     "<version>1.0</version>" +
+                     "</project>";
+        Pom pom = RawPom.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null).toPom(null, null);
+        return pom.withGav(new ResolvedGroupArtifactVersion(null, "org.example", artifactId, "1.0", null));
+    }
+}
@@ -0,0 +1,190 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.rtinfo.RuntimeInformation;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.maven.tree.MavenResolutionResult;
+import org.openrewrite.tree.ParsingExecutionContextView;
+import org.openrewrite.xml.tree.Xml;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MavenMojoProjectParserTest {
+
+    @Test
+    void projectsParsedConcurrentlyMatchThoseParsedOneAfterTheOther(@TempDir Path baseDir) throws Exception {
+        List<MavenProject> projects = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            projects.add(project(baseDir, "module" + i));
+        }
+        projects.get(2).getProperties().setProperty("project.build.sourceEncoding", "ISO-8859-1");
+
+        List<SourceFile> sequential = parse(baseDir, projects, new InMemoryExecutionContext(), 1);
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        List<SourceFile> concurrent = parse(baseDir, projects, ctx, 4);
+
+        assertThat(concurrent).extracting(SourceFile::getSourcePath)
+                .containsExactlyElementsOf(sequential.stream().map(SourceFile::getSourcePath).collect(Collectors.toList()));
+        assertThat(concurrent).extracting(SourceFile::printAll)
+                .containsExactlyElementsOf(sequential.stream().map(SourceFile::printAll).collect(Collectors.toList()));
+        assertThat(types(concurrent)).isEqualTo(types(sequential)).hasSize(12);
+        // the source encoding of a project is kept to the project
+        assertThat(ParsingExecutionContextView.view(ctx).getCharset()).isNull();
+    }
+
+    @Test
+    void reactorIsParsedAgainAfterAPomWasWritten(@TempDir Path baseDir) throws Exception {
+        MavenProject project = project(baseDir, "module");
+        Path pom = project.getFile().toPath();
+        writePom(pom, "1");
+        DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setLocalRepositoryPath(baseDir.resolve("repository").toFile());
+        request.setOffline(true);
+        MavenSession session = new MavenSession(null, new DefaultRepositorySystemSession(), request, new DefaultMavenExecutionResult());
+        session.setProjects(Collections.singletonList(project));
+        MavenMojoProjectParser parser = new MavenMojoProjectParser(new SystemStreamLog(), baseDir, false, null, 0, false,
+                runtime(), false, Collections.emptyList(), Collections.emptyList(), -1, session, null, null, ParsePlan.FULL);
+
+        assertThat(revision(parser.parseMaven(project, Collections.emptyList(), new InMemoryExecutionContext()))).isEqualTo("1");
+        writePom(pom, "2");
+        assertThat(revision(parser.parseMaven(project, Collections.emptyList(), new InMemoryExecutionContext()))).isEqualTo("1");
+        MavenMojoProjectParser.reactorPomsChanged(session);
+        assertThat(revision(parser.parseMaven(project, Collections.emptyList(), new InMemoryExecutionContext()))).isEqualTo("2");
+    }
+
+    @Test
+    void onlyTheSelectedProjectsAndThoseTheyDependOnAreParsed(@TempDir Path baseDir) throws Exception {
+        MavenProject library = project(baseDir, "library");
+        MavenProject application = project(baseDir, "application");
+        MavenProject unrelated = project(baseDir, "unrelated");
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("org.example");
+        dependency.setArtifactId("library");
+        dependency.setVersion("1.0");
+        application.getDependencies().add(dependency);
+        MavenSession session = new MavenSession(null, new DefaultRepositorySystemSession(),
+                new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult());
+        session.setAllProjects(Arrays.asList(library, application, unrelated));
+        // as with -pl application
+        session.setProjects(Collections.singletonList(application));
+
+        MavenMojoProjectParser parser = new MavenMojoProjectParser(new SystemStreamLog(), baseDir, false, null, 0, false,
+                runtime(), false, Collections.emptyList(), Collections.emptyList(), -1, session, null, null, ParsePlan.FULL);
+
+        assertThat(parser.reactorPoms()).containsExactlyInAnyOrder(
+                application.getFile().toPath(), library.getFile().toPath());
+    }
+
+    private static void writePom(Path pom, String revision) throws Exception {
+        Files.write(pom, ("<project><modelVersion>4.0.0</modelVersion>" +
+                          "<groupId>org.example</groupId><artifactId>module</artifactId><version>1.0</version>" +
+                          "<properties><revision>" + revision + "</revision></properties>" +
+                          "</project>").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String revision(@Nullable Xml.Document maven) {
+        assertThat(maven).isNotNull();
+        return maven.getMarkers().findFirst(MavenResolutionResult.class).orElseThrow(AssertionError::new)
+                .getPom().getProperties().get("revision");
+    }
+
+    private static List<SourceFile> parse(Path baseDir, List<MavenProject> projects, ExecutionContext ctx, int parseThreads) throws Exception {
+        MavenSession session = new MavenSession(null, new DefaultRepositorySystemSession(),
+                new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult());
+        session.setProjects(projects);
+        MavenMojoProjectParser parser = new MavenMojoProjectParser(new SystemStreamLog(), baseDir, false, null, 0, false,
+                runtime(), true, Collections.emptyList(), Collections.emptyList(), -1, session, null, null, ParsePlan.FULL);
+        parser.resetTypeCache();
+        return parser.listSourceFiles(projects, Collections.emptyList(), ctx, parseThreads);
+    }
+
+    private static RuntimeInformation runtime() {
+        return new RuntimeInformation() {
+            @Override
+            public String getMavenVersion() {
+                return "3.8.6";
+            }
+
+            @Override
+            public boolean isMavenVersion(String versionRange) {
+                return true;
+            }
+        };
+    }
+
+    private static MavenProject project(Path baseDir, String artifactId) throws Exception {
+        Path projectDir = Files.createDirectories(baseDir.resolve(artifactId));
+        Path sources = Files.createDirectories(projectDir.resolve("src/main/java/org/example/" + artifactId));
+        Files.write(sources.resolve("Outer.java"), ("package org.example." + artifactId + ";\n\n" +
+                                                    "public class Outer {\n" +
+                                                    "    Inner inner = new Inner();\n\n" +
+                                                    "    public String name() {\n" +
+                                                    "        return inner.outer().toString();\n" +
+                                                    "    }\n" +
+                                                    "}\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(sources.resolve("Inner.java"), ("package org.example." + artifactId + ";\n\n" +
+                                                    "class Inner {\n" +
+                                                    "    Outer outer() {\n" +
+                                                    "        return new Outer();\n" +
+                                                    "    }\n" +
+                                                    "}\n").getBytes(StandardCharsets.UTF_8));
+
+        Model model = new Model();
+        model.setGroupId("org.example");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0");
+        Build build = new Build();
+        build.setDirectory(projectDir.resolve("target").toString());
+        build.setOutputDirectory(projectDir.resolve("target/classes").toString());
+        build.setTestOutputDirectory(projectDir.resolve("target/test-classes").toString());
+        build.setSourceDirectory(projectDir.resolve("src/main/java").toString());
+        build.setTestSourceDirectory(projectDir.resolve("src/test/java").toString());
+        model.setBuild(build);
+        MavenProject project = new MavenProject(model);
+        project.setFile(projectDir.resolve("pom.xml").toFile());
+        return project;
+    }
+
+    /**
+     * The types of the classes of each source, with the types of their fields and the return types of their methods.
+     */
+    private static List<String> types(List<SourceFile> sourceFiles) {
+        List<String> types = new ArrayList<>();
+        for (SourceFile sourceFile : sourceFiles) {
+            if (sourceFile instanceof J.CompilationUnit) {
+                for (J.ClassDeclaration classDeclaration : ((J.CompilationUnit) sourceFile).getClasses()) {
+                    JavaType.FullyQualified type = classDeclaration.getType();
+                    assertThat(type).isNotNull();
+                    types.add(type.getFullyQualifiedName() +
+                              type.getMembers().stream().map(m -> " " + m.getName() + ":" + m.getType()).collect(Collectors.joining()) +
+                              type.getMethods().stream().map(m -> " " + m.getName() + "():" + m.getReturnType()).collect(Collectors.joining()));
+                }
+            }
+        }
+        return types;
+    }
+}
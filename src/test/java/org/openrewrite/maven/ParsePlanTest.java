@@ -0,0 +1,164 @@
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.Recipe;
+import org.openrewrite.config.CompositeRecipe;
+import org.openrewrite.config.Environment;
+import org.openrewrite.config.YamlResourceLoader;
+import org.openrewrite.java.cleanup.FinalizeLocalVariables;
+import org.openrewrite.java.format.AutoFormat;
+import org.openrewrite.maven.ParsePlan.SourceKind;
+import org.openrewrite.yaml.ChangePropertyKey;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParsePlanTest {
+
+    @Test
+    void typeFreeRecipesAreParsedWithoutTypes() {
+        CompositeRecipe recipe = new CompositeRecipe();
+        recipe.doNext(new AutoFormat());
+        recipe.doNext(new ChangePropertyKey("a.b", "a.c", null, null, null));
+
+        assertThat(ParsePlan.forRecipe(recipe, "auto", "auto").isTypeAttribution()).isFalse();
+        assertThat(ParsePlan.forRecipe(recipe, "true", "auto").isTypeAttribution()).isTrue();
+    }
+
+    @Test
+    void anyRecipeThatMayNeedTypesKeepsTypeAttribution() {
+        CompositeRecipe recipe = new CompositeRecipe();
+        recipe.doNext(new AutoFormat());
+        recipe.doNext(new FinalizeLocalVariables());
+
+        assertThat(ParsePlan.forRecipe(recipe, "auto", "auto").isTypeAttribution()).isTrue();
+        assertThat(ParsePlan.forRecipe(recipe, "false", "auto").isTypeAttribution()).isFalse();
+    }
+
+    @Test
+    void onlyTheKindsTheRecipesChangeAreParsed() {
+        CompositeRecipe recipe = new CompositeRecipe();
+        recipe.doNext(new AutoFormat());
+        recipe.doNext(new ChangePropertyKey("a.b", "a.c", null, null, null));
+
+        assertThat(ParsePlan.forRecipe(recipe, "auto", "auto").getSourceKinds())
+                .containsExactlyInAnyOrder(SourceKind.JAVA, SourceKind.YAML);
+    }
+
+    @Test
+    void mavenRecipesOnlyParsePoms() {
+        ParsePlan plan = ParsePlan.forRecipe(new ChangePropertyValue("a", "b", null, null), "auto", "auto");
+
+        assertThat(plan.getSourceKinds()).containsExactly(SourceKind.MAVEN);
+        assertThat(plan.parsesProjectFiles()).isFalse();
+    }
+
+    @Test
+    void recipesOfOtherLibrariesParseEverything() {
+        Recipe recipe = new Recipe() {
+            @Override
+            public String getDisplayName() {
+                return "Unknown";
+            }
+        };
+
+        ParsePlan plan = ParsePlan.forRecipe(recipe, "auto", "auto");
+        assertThat(plan.getSourceKinds()).isEqualTo(EnumSet.allOf(SourceKind.class));
+        assertThat(plan.isTypeAttribution()).isTrue();
+    }
+
+    @Test
+    void declarativeRecipesParseTheKindsOfAllTheRecipesTheyUse() {
+        String yaml = "type: specs.openrewrite.org/v1beta/recipe\n" +
+                      "name: org.example.Upgrade\n" +
+                      "recipeList:\n" +
+                      "  - org.openrewrite.java.format.AutoFormat\n" +
+                      "  - org.example.UpgradeConfiguration\n" +
+                      "---\n" +
+                      "type: specs.openrewrite.org/v1beta/recipe\n" +
+                      "name: org.example.UpgradeConfiguration\n" +
+                      "recipeList:\n" +
+                      "  - org.openrewrite.maven.ChangePropertyValue:\n" +
+                      "      key: a\n" +
+                      "      newValue: b\n" +
+                      "  - org.openrewrite.yaml.ChangePropertyKey:\n" +
+                      "      oldPropertyKey: a.b\n" +
+                      "      newPropertyKey: a.c\n";
+        Environment env = Environment.builder()
+                .scanRuntimeClasspath("org.openrewrite.java.format")
+                .load(new YamlResourceLoader(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)),
+                        URI.create("rewrite.yml"), new Properties()))
+                .build();
+
+        ParsePlan plan = ParsePlan.forRecipe(env.activateRecipes("org.example.Upgrade"), "auto", "auto");
+        assertThat(plan.getSourceKinds()).containsExactlyInAnyOrder(SourceKind.JAVA, SourceKind.MAVEN, SourceKind.YAML);
+        assertThat(plan.isTypeAttribution()).isFalse();
+    }
+
+    @Test
+    void everythingIsParsedWithTypesUnlessAutoIsChosen() {
+        ParsePlan plan = ParsePlan.forRecipe(new AutoFormat(), "true", "all");
+
+        assertThat(plan.getSourceKinds()).isEqualTo(ParsePlan.FULL.getSourceKinds());
+        assertThat(plan.isTypeAttribution()).isTrue();
+    }
+
+    @Test
+    void sourceKindsCanBeChosen() {
+        assertThat(ParsePlan.forRecipe(new AutoFormat(), "auto", "maven, yaml").getSourceKinds())
+                .containsExactlyInAnyOrder(SourceKind.MAVEN, SourceKind.YAML);
+    }
+
+    @Test
+    void onlyFilesContainingAPrefilterTokenMayChange(@TempDir Path temp) throws Exception {
+        Path uses = temp.resolve("Uses.java");
+        Files.write(uses, "import org.example.Old;".getBytes(StandardCharsets.UTF_8));
+        Path unrelated = temp.resolve("Unrelated.java");
+        Files.write(unrelated, "import org.example.New;".getBytes(StandardCharsets.UTF_8));
+        // larger than a chunk read at once, with the token at its very end
+        Path large = temp.resolve("large.xml");
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 100_000) {
+            content.append("<dependency/>");
+        }
+        Files.write(large, content.append("old-artifact").toString().getBytes(StandardCharsets.UTF_8));
+        // with the token spanning two chunks
+        Path spanning = temp.resolve("spanning.xml");
+        char[] filler = new char[SourcePrefilter.CHUNK_BYTES - 5];
+        Arrays.fill(filler, ' ');
+        Files.write(spanning, (new String(filler) + "old-artifact").getBytes(StandardCharsets.UTF_8));
+
+        ParsePlan plan = ParsePlan.FULL.withPrefilter(Arrays.asList("org.example.Old", " old-artifact "));
+        assertThat(plan.isPrefiltered()).isTrue();
+        assertThat(plan.mayChange(uses)).isTrue();
+        assertThat(plan.mayChange(unrelated)).isFalse();
+        assertThat(plan.mayChange(large)).isTrue();
+        assertThat(plan.mayChange(spanning)).isTrue();
+        Files.write(large, content.substring(0, 100_000).getBytes(StandardCharsets.UTF_8));
+        assertThat(plan.mayChange(large)).isFalse();
+        assertThat(plan.mayChange(temp.resolve("missing.xml"))).isTrue();
+
+        ParsePlan unfiltered = ParsePlan.FULL.withPrefilter(Collections.singletonList(""));
+        assertThat(unfiltered.isPrefiltered()).isFalse();
+        assertThat(unfiltered.mayChange(unrelated)).isTrue();
+    }
+
+    @Test
+    void unknownModes() {
+        assertThatThrownBy(() -> ParsePlan.forRecipe(new AutoFormat(), "sometimes", "auto"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ParsePlan.forRecipe(new AutoFormat(), "auto", "java,kotlin"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,58 @@
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.Pom;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PomCacheBundleTest {
+
+    @Test
+    void exportedPomsSeedAnotherCacheOnce(@TempDir Path temp) throws Exception {
+        Pom a = pom("a");
+        Pom b = pom("b");
+        Path bundle = temp.resolve("poms.bundle");
+        try (ShardedRocksdbMavenPomCache cache = new ShardedRocksdbMavenPomCache(temp.resolve("exported"), 2)) {
+            cache.putPom(a.getGav(), a);
+            cache.putPom(b.getGav(), b);
+            assertThat(PomCacheBundle.export(cache, bundle)).isEqualTo(2);
+        }
+
+        Path seeded = temp.resolve("seeded");
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(seeded)) {
+            cache.putPom(a.getGav(), a);
+            assertThat(PomCacheBundle.seed(cache, seeded, bundle)).isEqualTo(1);
+            assertThat(PomCacheBundle.seed(cache, seeded, bundle)).isEqualTo(-1);
+            assertThat(cache.getPom(b.getGav())).map(Pom::getGav).hasValue(b.getGav());
+        }
+    }
+
+    @Test
+    void otherFilesAreNotImported(@TempDir Path temp) throws Exception {
+        Path bundle = temp.resolve("poms.bundle");
+        Files.write(bundle, "not a bundle".getBytes(StandardCharsets.UTF_8));
+        try (MappedFileMavenPomCache cache = new MappedFileMavenPomCache(temp.resolve("cache"))) {
+            assertThatThrownBy(() -> PomCacheBundle.importInto(cache, bundle)).isInstanceOf(IOException.class);
+        }
+    }
+
+    private static Pom pom(String artifactId) {
+        String xml = "<project>" +
+                     "<groupId>org.example</groupId>" +
+                     "<artifactId>" + artifactId + "</artifactId>" +
+                     "<version>1.0</version>" +
+                     "</project>";
+        Pom pom = RawPom.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null).toPom(null, null);
+        return pom.withGav(new ResolvedGroupArtifactVersion(null, "org.example", artifactId, "1.0", null));
+    }
+}
@@ -0,0 +1,92 @@
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.maven.cache.InMemoryMavenPomCache;
+import org.openrewrite.maven.tree.MavenResolutionResult;
+import org.openrewrite.xml.tree.Xml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PomPrefetcherTest {
+
+    @Test
+    void parentsAndBomsAreResolvedFromThePomCacheAfterwards(@TempDir Path temp) throws Exception {
+        Path repository = temp.resolve("repository");
+        deploy(repository, "grandparent", "1.0", "");
+        deploy(repository, "parent", "1.0", parent("grandparent", "1.0") +
+                                             "<properties><bom.version>2.0</bom.version></properties>");
+        deploy(repository, "bom-parent", "2.0", "");
+        deploy(repository, "bom", "2.0", parent("bom-parent", "2.0") +
+                                         "<dependencyManagement><dependencies><dependency>" +
+                                         "<groupId>org.example</groupId><artifactId>managed</artifactId><version>3.0</version>" +
+                                         "</dependency></dependencies></dependencyManagement>");
+
+        Path project = temp.resolve("project/pom.xml");
+        Files.createDirectories(project.getParent());
+        write(project, pom("project", "1.0", parent("parent", "1.0") +
+                                             "<dependencyManagement><dependencies><dependency>" +
+                                             "<groupId>org.example</groupId><artifactId>bom</artifactId>" +
+                                             "<version>${bom.version}</version><type>pom</type><scope>import</scope>" +
+                                             "</dependency></dependencies></dependencyManagement>"));
+
+        ExecutionContext ctx = new InMemoryExecutionContext(t -> {
+        });
+        MavenSettings.Mirrors mirrors = new MavenSettings.Mirrors(Collections.singletonList(
+                new MavenSettings.Mirror("file-mirror", repository.toUri().toString(), "*", null, null)));
+        MavenExecutionContextView.view(ctx)
+                .setMavenSettings(new MavenSettings(temp.resolve("local").toString(), null, null, mirrors, null))
+                .setPomCache(new InMemoryMavenPomCache());
+
+        // the bom's version is only known once the parent is read
+        assertThat(new PomPrefetcher(PomPrefetcher.readProjectPoms(Collections.singletonList(project)), ctx, 4).prefetch())
+                .isEqualTo(4);
+
+        delete(repository);
+        List<Xml.Document> poms = MavenParser.builder().build().parse(Collections.singletonList(project), temp, ctx);
+        assertThat(poms).singleElement().satisfies(pom -> {
+            MavenResolutionResult result = pom.getMarkers().findFirst(MavenResolutionResult.class).orElseThrow(AssertionError::new);
+            assertThat(result.getPom().getManagedVersion("org.example", "managed", null, null)).isEqualTo("3.0");
+        });
+    }
+
+    private static String parent(String artifactId, String version) {
+        return "<parent><groupId>org.example</groupId><artifactId>" + artifactId + "</artifactId>" +
+               "<version>" + version + "</version><relativePath/></parent>";
+    }
+
+    private static String pom(String artifactId, String version, String body) {
+        return "<project><modelVersion>4.0.0</modelVersion>" +
+               "<groupId>org.example</groupId><artifactId>" + artifactId + "</artifactId>" +
+               "<version>" + version + "</version><packaging>pom</packaging>" + body + "</project>";
+    }
+
+    private static void deploy(Path repository, String artifactId, String version, String body) throws IOException {
+        Path directory = repository.resolve("org/example").resolve(artifactId).resolve(version);
+        Files.createDirectories(directory);
+        write(directory.resolve(artifactId + "-" + version + ".pom"), pom(artifactId, version, body));
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
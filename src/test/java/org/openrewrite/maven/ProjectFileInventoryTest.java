@@ -0,0 +1,74 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.SourceFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectFileInventoryTest {
+
+    @Test
+    void resourcesMatchWalkingTheFileSystem(@TempDir Path project) throws IOException {
+        write(project, "pom.xml", "<project/>");
+        write(project, "src/main/resources/application.yml", "a: 1");
+        write(project, "src/main/resources/target/ignored.yml", "b: 2");
+        write(project, "src/test/resources/test.properties", "c=3");
+        write(project, "target/classes/application.yml", "a: 1");
+        write(project, "module/pom.xml", "<project/>");
+        write(project, "README.md", "readme");
+
+        ResourceParser rp = new ResourceParser(project, new SystemStreamLog(), Collections.emptyList(),
+                Collections.emptyList(), -1, Collections.singleton(project.resolve("module")), null);
+        ProjectFileInventory inventory = rp.inventory(project, Collections.singletonList(project.resolve("target")));
+
+        for (Path searchDir : Arrays.asList(project.resolve("src/main/resources"), project.resolve("src/test/resources"), project)) {
+            assertThat(sourcePaths(rp.parse(inventory, searchDir, new HashSet<>())))
+                    .isEqualTo(sourcePaths(rp.parse(searchDir, new HashSet<>())));
+        }
+        assertThat(sourcePaths(rp.parse(inventory, project, new HashSet<>())))
+                .containsExactlyInAnyOrder("pom.xml", "src/main/resources/application.yml",
+                        "src/test/resources/test.properties", "README.md");
+    }
+
+    @Test
+    void javaSourcesBelowIgnoredDirectories(@TempDir Path project) throws IOException {
+        write(project, "src/main/java/a/A.java", "class A {}");
+        write(project, "target/generated-sources/annotations/a/B.java", "class B {}");
+        write(project, "target/classes/a/A.class", "");
+
+        ResourceParser rp = new ResourceParser(project, new SystemStreamLog(), Collections.emptyList(),
+                Collections.emptyList(), -1, Collections.emptySet(), null);
+        ProjectFileInventory inventory = rp.inventory(project,
+                Arrays.asList(project.resolve("target"), project.resolve("src/main/java")));
+
+        assertThat(inventory.containsJavaSources(project.resolve("target"))).isTrue();
+        assertThat(inventory.javaSources(project.resolve("target")))
+                .containsExactly(project.resolve("target/generated-sources/annotations/a/B.java"));
+        assertThat(inventory.javaSources(project.resolve("src/main/java")))
+                .containsExactly(project.resolve("src/main/java/a/A.java"));
+    }
+
+    private static void write(Path project, String path, String content) throws IOException {
+        Path file = project.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> sourcePaths(List<SourceFile> sourceFiles) {
+        return sourceFiles.stream()
+                .map(s -> s.getSourcePath().toString())
+                .collect(toList());
+    }
+}
@@ -0,0 +1,105 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.maven.cache.InMemoryMavenPomCache;
+import org.openrewrite.maven.tree.MavenResolutionResult;
+import org.openrewrite.maven.tree.ResolvedDependency;
+import org.openrewrite.maven.tree.Scope;
+import org.openrewrite.xml.tree.Xml;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactorPomParserTest {
+
+    @Test
+    void dependenciesAreTakenFromMaven(@TempDir Path temp) throws Exception {
+        Path pom = temp.resolve("pom.xml");
+        Files.write(pom, ("<project><modelVersion>4.0.0</modelVersion>" +
+                          "<groupId>org.example</groupId><artifactId>project</artifactId><version>1.0</version>" +
+                          "<dependencies><dependency>" +
+                          "<groupId>org.example</groupId><artifactId>direct</artifactId><version>${direct.version}</version>" +
+                          "</dependency><dependency>" +
+                          "<groupId>org.example</groupId><artifactId>tested</artifactId><version>1.0</version><scope>test</scope>" +
+                          "</dependency></dependencies>" +
+                          "<properties><direct.version>2.0</direct.version></properties>" +
+                          "</project>").getBytes(StandardCharsets.UTF_8));
+
+        Artifact direct = artifact("direct", "2.0", "compile", "org.example:project:jar:1.0");
+        Artifact transitive = artifact("transitive", "3.0", "compile", "org.example:project:jar:1.0", direct.getId());
+        Artifact tested = artifact("tested", "1.0", "test", "org.example:project:jar:1.0");
+        MavenProject project = project(pom, new LinkedHashSet<>(Arrays.asList(direct, transitive, tested)), "direct", "tested");
+
+        List<Xml.Document> parsed = new ReactorPomParser(Collections.emptyList(), Collections.singletonMap(pom, project))
+                .parse(Collections.singletonList(pom), temp, offline(temp));
+
+        MavenResolutionResult model = parsed.get(0).getMarkers().findFirst(MavenResolutionResult.class).orElseThrow(AssertionError::new);
+        List<ResolvedDependency> compile = model.getDependencies().get(Scope.Compile);
+        assertThat(compile).extracting(ResolvedDependency::getArtifactId).containsExactly("direct", "transitive");
+        assertThat(compile.get(0).getRequested().getVersion()).isEqualTo("${direct.version}");
+        assertThat(compile.get(0).getDependencies()).containsExactly(compile.get(1));
+        assertThat(compile.get(1).getDepth()).isEqualTo(1);
+        assertThat(model.getDependencies().get(Scope.Test)).extracting(ResolvedDependency::getArtifactId)
+                .containsExactly("direct", "tested", "transitive");
+        assertThat(model.findDependencies("org.example", "tested", Scope.Compile)).isEmpty();
+    }
+
+    @Test
+    void notTakenFromMavenUnlessMavenResolvedThem(@TempDir Path temp) {
+        Path pom = temp.resolve("pom.xml");
+        MavenProject project = project(pom, Collections.emptySet(), "direct");
+        assertThat(ReactorPomParser.dependencies(project, null, null)).isNull();
+        assertThat(ReactorPomParser.dependencies(null, null, null)).isNull();
+    }
+
+    private static ExecutionContext offline(Path temp) {
+        // nothing can be downloaded, so that the test fails if rewrite resolves the dependencies itself
+        ExecutionContext ctx = new InMemoryExecutionContext(t -> {
+        });
+        MavenSettings.Mirrors mirrors = new MavenSettings.Mirrors(Collections.singletonList(
+                new MavenSettings.Mirror("none", temp.resolve("missing").toUri().toString(), "*", null, null)));
+        MavenExecutionContextView.view(ctx)
+                .setMavenSettings(new MavenSettings(temp.resolve("local").toString(), null, null, mirrors, null))
+                .setPomCache(new InMemoryMavenPomCache());
+        return ctx;
+    }
+
+    private static MavenProject project(Path pom, Set<Artifact> artifacts, String... dependencies) {
+        Model model = new Model();
+        model.setGroupId("org.example");
+        model.setArtifactId("project");
+        model.setVersion("1.0");
+        for (String artifactId : dependencies) {
+            Dependency dependency = new Dependency();
+            dependency.setGroupId("org.example");
+            dependency.setArtifactId(artifactId);
+            model.addDependency(dependency);
+        }
+        MavenProject project = new MavenProject(model);
+        project.setFile(pom.toFile());
+        project.setArtifacts(artifacts);
+        return project;
+    }
+
+    private static Artifact artifact(String artifactId, String version, String scope, String... trail) {
+        Artifact artifact = new DefaultArtifact("org.example", artifactId, version, scope, "jar", null,
+                new DefaultArtifactHandler("jar"));
+        List<String> dependencyTrail = new ArrayList<>(Arrays.asList(trail));
+        dependencyTrail.add(artifact.getId());
+        artifact.setDependencyTrail(dependencyTrail);
+        return artifact;
+    }
+}
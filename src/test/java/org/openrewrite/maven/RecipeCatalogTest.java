@@ -0,0 +1,133 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.Recipe;
+import org.openrewrite.config.ClasspathScanningLoader;
+import org.openrewrite.config.Environment;
+import org.openrewrite.config.RecipeDescriptor;
+import org.openrewrite.config.ResourceLoader;
+import org.openrewrite.java.format.AutoFormat;
+import org.openrewrite.style.NamedStyles;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipeCatalogTest {
+
+    @Test
+    void indexedRecipesMatchScanningTheClasspath(@TempDir Path temp) throws Exception {
+        try (URLClassLoader classLoader = recipeClassLoader(temp)) {
+            RecipeCatalog catalog = new RecipeCatalog(temp.resolve("catalog"), new SystemStreamLog());
+            AtomicInteger scans = new AtomicInteger();
+
+            ResourceLoader scanned = new ClasspathScanningLoader(new Properties(), classLoader);
+            ResourceLoader firstRun = catalog.load(classLoader, classLoader, new Properties(), () -> {
+                scans.incrementAndGet();
+                return new ClasspathScanningLoader(new Properties(), classLoader);
+            });
+            ResourceLoader indexed = catalog.load(classLoader, classLoader, new Properties(), () -> {
+                scans.incrementAndGet();
+                return new ClasspathScanningLoader(new Properties(), classLoader);
+            });
+
+            assertThat(scans).hasValue(1);
+            assertThat(recipeNames(firstRun)).isEqualTo(recipeNames(scanned));
+            assertThat(recipeNames(indexed)).isNotEmpty().isEqualTo(recipeNames(scanned));
+            assertThat(styleNames(indexed)).isEqualTo(styleNames(scanned));
+            assertThat(indexed.listRecipeDescriptors().stream().map(RecipeDescriptor::getName).collect(toList()))
+                    .isEqualTo(scanned.listRecipeDescriptors().stream().map(RecipeDescriptor::getName).collect(toList()));
+            assertThat(indexed.listCategoryDescriptors()).hasSameSizeAs(scanned.listCategoryDescriptors());
+        }
+    }
+
+    @Test
+    void touchedJarsWithTheSameContentKeepTheIndex(@TempDir Path temp) throws Exception {
+        try (URLClassLoader classLoader = recipeClassLoader(temp)) {
+            RecipeCatalog catalog = new RecipeCatalog(temp.resolve("catalog"), new SystemStreamLog());
+            AtomicInteger scans = new AtomicInteger();
+
+            catalog.load(classLoader, classLoader, new Properties(), () -> {
+                scans.incrementAndGet();
+                return new ClasspathScanningLoader(new Properties(), classLoader);
+            });
+            for (URL url : classLoader.getURLs()) {
+                Files.setLastModifiedTime(Paths.get(url.toURI()), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+            }
+            catalog.load(classLoader, classLoader, new Properties(), () -> {
+                scans.incrementAndGet();
+                return new ClasspathScanningLoader(new Properties(), classLoader);
+            });
+
+            assertThat(scans).hasValue(1);
+        }
+    }
+
+    @Test
+    void everyActivationCreatesRecipesOfItsOwn(@TempDir Path temp) throws Exception {
+        try (URLClassLoader classLoader = recipeClassLoader(temp)) {
+            ResourceLoader indexed = new RecipeCatalog(temp.resolve("catalog"), new SystemStreamLog())
+                    .load(classLoader, classLoader, new Properties(), () -> new ClasspathScanningLoader(new Properties(), classLoader));
+            Environment env = new Environment(singletonList(indexed));
+
+            Recipe first = env.activateRecipes("org.openrewrite.java.cleanup.Cleanup");
+            Recipe second = env.activateRecipes("org.openrewrite.java.cleanup.Cleanup");
+
+            assertThat(RecipeCatalog.createsRecipeInstances(indexed)).isTrue();
+            List<Recipe> firstRecipes = recipes(first);
+            List<Recipe> secondRecipes = recipes(second);
+            assertThat(firstRecipes).hasSizeGreaterThan(10).hasSameSizeAs(secondRecipes);
+            for (int i = 0; i < firstRecipes.size(); i++) {
+                assertThat(firstRecipes.get(i).getName()).isEqualTo(secondRecipes.get(i).getName());
+                assertThat(firstRecipes.get(i)).isNotSameAs(secondRecipes.get(i));
+            }
+        }
+    }
+
+    /**
+     * The recipe and all recipes it is composed of.
+     */
+    private static List<Recipe> recipes(Recipe recipe) {
+        List<Recipe> recipes = new ArrayList<>();
+        recipes.add(recipe);
+        for (Recipe child : recipe.getRecipeList()) {
+            recipes.addAll(recipes(child));
+        }
+        return recipes;
+    }
+
+    /**
+     * Copies of the rewrite-core and rewrite-java jars, so that their modification times can be changed.
+     */
+    private static URLClassLoader recipeClassLoader(Path temp) throws Exception {
+        return new URLClassLoader(new URL[]{copy(Recipe.class, temp), copy(AutoFormat.class, temp)});
+    }
+
+    private static URL copy(Class<?> type, Path temp) throws Exception {
+        Path jar = Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path copy = temp.resolve(jar.getFileName());
+        Files.copy(jar, copy);
+        return copy.toUri().toURL();
+    }
+
+    private static List<String> recipeNames(ResourceLoader loader) {
+        return loader.listRecipes().stream().map(Recipe::getName).collect(toList());
+    }
+
+    private static List<String> styleNames(ResourceLoader loader) {
+        return loader.listStyles().stream().map(NamedStyles::getName).collect(toList());
+    }
+}
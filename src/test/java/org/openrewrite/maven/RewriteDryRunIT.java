@@ -3,7 +3,17 @@ package org.openrewrite.maven;
 import com.soebes.itf.jupiter.extension.*;
 import com.soebes.itf.jupiter.maven.MavenExecutionResult;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import static com.soebes.itf.extension.assertj.MavenITAssertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 @MavenJupiterExtension
 @MavenOption(MavenCLIOptions.NO_TRANSFER_PROGRESS)
@@ -29,6 +39,68 @@ public class RewriteDryRunIT {
                 .anySatisfy(line -> assertThat(line).contains("org.openrewrite.java.cleanup.FinalizeLocalVariables"));
     }
 
+    @MavenTest
+    @SystemProperties({
+            @SystemProperty(value = "rewrite.streamingBatchSize", content = "1")
+    })
+    void streaming_multi_module_project(MavenExecutionResult result) throws IOException {
+        assertThat(result)
+                .isSuccessful()
+                .out()
+                .info()
+                .anySatisfy(line -> assertThat(line).contains("Processing projects 3 to 3 of 3"));
+        assertThat(result)
+                .out()
+                .warn()
+                .anySatisfy(line -> assertThat(line).contains("org.openrewrite.java.cleanup.FinalizeLocalVariables"));
+
+        // modules a and b are changed in batches of their own, and each batch appends its diffs to the same patch
+        Path patch = result.getMavenProjectResult().getTargetProjectDirectory().resolve("target/rewrite/rewrite.patch");
+        assertThat(patchedFiles(patch)).containsExactly(
+                "a/src/main/java/sample/SimplifyBooleanSample.java",
+                "b/src/main/java/sample/FinalizeLocalVariablesSample.java");
+    }
+
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -\\d+(?:,(\\d+))? \\+\\d+(?:,(\\d+))? @@.*");
+
+    /**
+     * The files a patch changes, in the order their diffs appear, failing if any of their hunks is cut short.
+     */
+    private static List<String> patchedFiles(Path patch) throws IOException {
+        List<String> files = new ArrayList<>();
+        List<String> lines = Files.readAllLines(patch, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.startsWith("diff --git a/")) {
+                files.add(line.substring("diff --git a/".length(), line.indexOf(" b/")));
+                continue;
+            }
+            Matcher hunk = HUNK_HEADER.matcher(line);
+            if (!hunk.matches()) {
+                continue;
+            }
+            int before = hunk.group(1) == null ? 1 : Integer.parseInt(hunk.group(1));
+            int after = hunk.group(2) == null ? 1 : Integer.parseInt(hunk.group(2));
+            while (before > 0 || after > 0) {
+                if (++i >= lines.size()) {
+                    fail("The last hunk of " + files.get(files.size() - 1) + " is truncated");
+                }
+                String hunkLine = lines.get(i);
+                if (hunkLine.startsWith("-")) {
+                    before--;
+                } else if (hunkLine.startsWith("+")) {
+                    after--;
+                } else if (hunkLine.startsWith(" ") || hunkLine.isEmpty()) {
+                    before--;
+                    after--;
+                } else if (!hunkLine.startsWith("\\")) {
+                    fail("A hunk of " + files.get(files.size() - 1) + " is truncated before: " + hunkLine);
+                }
+            }
+        }
+        return files;
+    }
+
     @MavenTest
     void recipe_order(MavenExecutionResult result) {
         assertThat(result)
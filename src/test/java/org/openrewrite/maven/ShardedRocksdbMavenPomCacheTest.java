@@ -0,0 +1,151 @@
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.Pom;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedRocksdbMavenPomCacheTest {
+
+    @Test
+    void concurrentBuildsEachWriteTheirOwnShard(@TempDir Path cacheDirectory) throws Exception {
+        Pom a = pom("a");
+        try (ShardedRocksdbMavenPomCache first = new ShardedRocksdbMavenPomCache(cacheDirectory, 2)) {
+            first.putPom(a.getGav(), a);
+        }
+
+        Pom b = pom("b");
+        try (ShardedRocksdbMavenPomCache first = new ShardedRocksdbMavenPomCache(cacheDirectory, 2);
+             ShardedRocksdbMavenPomCache second = new ShardedRocksdbMavenPomCache(cacheDirectory, 2);
+             ShardedRocksdbMavenPomCache third = new ShardedRocksdbMavenPomCache(cacheDirectory, 2)) {
+            assertThat(first.isWritable()).isTrue();
+            assertThat(second.isWritable()).isTrue();
+            assertThat(third.isWritable()).isFalse();
+            // looking for a shard to write to did not release the locks of the other builds
+            assertThat(lockedForOtherJvms(cacheDirectory.resolve("0.lock"))).isTrue();
+            assertThat(lockedForOtherJvms(cacheDirectory.resolve("1.lock"))).isTrue();
+
+            // what was written before is seen by every build, including the one that cannot write
+            for (ShardedRocksdbMavenPomCache cache : new ShardedRocksdbMavenPomCache[]{first, second, third}) {
+                assertThat(cache.getPom(a.getGav())).map(Pom::getGav).hasValue(a.getGav());
+            }
+
+            second.putPom(b.getGav(), b);
+            assertThat(second.getPom(b.getGav())).map(Pom::getGav).hasValue(b.getGav());
+            third.putPom(b.getGav(), b);
+            assertThat(third.getPom(b.getGav())).isNull();
+        }
+
+        try (ShardedRocksdbMavenPomCache cache = new ShardedRocksdbMavenPomCache(cacheDirectory, 2)) {
+            Optional<Pom> cached = cache.getPom(b.getGav());
+            assertThat(cached).map(Pom::getGav).hasValue(b.getGav());
+        }
+    }
+
+    @Test
+    void shardsOfOtherBuildsCatchUpWithWhatTheyFlushed(@TempDir Path cacheDirectory) throws Exception {
+        Pom a = pom("a");
+        Pom b = pom("b");
+        try (ShardedRocksdbMavenPomCache first = new ShardedRocksdbMavenPomCache(cacheDirectory, 2)) {
+            first.putPom(a.getGav(), a);
+        }
+
+        ShardedRocksdbMavenPomCache first = new ShardedRocksdbMavenPomCache(cacheDirectory, 2);
+        try (ShardedRocksdbMavenPomCache second = new ShardedRocksdbMavenPomCache(cacheDirectory, 2)) {
+            try {
+                assertThat(second.getPom(b.getGav())).isNull();
+                first.putPom(b.getGav(), b);
+            } finally {
+                // flushes what the first build wrote to its shard
+                first.close();
+            }
+
+            Thread.sleep(ShardedRocksdbMavenPomCache.CATCH_UP_INTERVAL.toMillis() + 100);
+            assertThat(second.getPom(a.getGav())).map(Pom::getGav).hasValue(a.getGav());
+            assertThat(second.getPom(b.getGav())).map(Pom::getGav).hasValue(b.getGav());
+        }
+        // the secondaries leave nothing behind
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            assertThat(files.map(file -> file.getFileName().toString())).noneMatch(name -> name.contains("secondary"));
+        }
+    }
+
+    @Test
+    void pruneRemovesOldPomsAndThenTheOldestBeyondTheSizeCap(@TempDir Path cacheDirectory) throws Exception {
+        Pom a = pom("a");
+        Pom b = pom("b");
+        Pom c = pom("c");
+        long expireBefore;
+        try (ShardedRocksdbMavenPomCache cache = new ShardedRocksdbMavenPomCache(cacheDirectory, 2)) {
+            cache.putPom(a.getGav(), a);
+            Thread.sleep(10);
+            expireBefore = System.currentTimeMillis();
+            Thread.sleep(10);
+            cache.putPom(b.getGav(), b);
+            Thread.sleep(10);
+            cache.putPom(c.getGav(), c);
+        }
+        PomCacheStatistics before = ShardedRocksdbMavenPomCache.statistics(cacheDirectory);
+        assertThat(before.getPoms()).isEqualTo(3);
+
+        PomCacheStatistics removed = ShardedRocksdbMavenPomCache.prune(cacheDirectory, expireBefore, before.getBytes() / 3 + 1);
+        assertThat(removed.getPoms()).isEqualTo(2);
+        assertThat(removed.getStoresInUse()).isZero();
+
+        try (ShardedRocksdbMavenPomCache cache = new ShardedRocksdbMavenPomCache(cacheDirectory, 2)) {
+            assertThat(cache.getPom(a.getGav())).isNull();
+            assertThat(cache.getPom(b.getGav())).isNull();
+            assertThat(cache.getPom(c.getGav())).map(Pom::getGav).hasValue(c.getGav());
+
+            // the shard this JVM writes to is left as it is
+            assertThat(ShardedRocksdbMavenPomCache.compact(cacheDirectory).getStoresInUse()).isEqualTo(1);
+        }
+    }
+
+    private static Pom pom(String artifactId) {
+        String xml = "<project>" +
+                     "<groupId>org.example</groupId>" +
+                     "<artifactId>" + artifactId + "</artifactId>" +
+                     "<version>1.0</version>" +
+                     "</project>";
+        Pom pom = RawPom.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null).toPom(null, null);
+        return pom.withGav(new ResolvedGroupArtifactVersion(null, "org.example", artifactId, "1.0", null));
+    }
+
+    private static boolean lockedForOtherJvms(Path lockFile) throws Exception {
+        Process probe = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                LockProbe.class.getName(), lockFile.toString())
+                .redirectErrorStream(true)
+                .start();
+        return probe.waitFor() == 1;
+    }
+
+    /**
+     * Exits with 1 when the lock file given is locked by another JVM.
+     */
+    static class LockProbe {
+        public static void main(String[] args) throws Exception {
+            try (FileChannel channel = FileChannel.open(new File(args[0]).toPath(), StandardOpenOption.WRITE);
+                 FileLock lock = channel.tryLock()) {
+                System.exit(lock == null ? 1 : 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.properties.PropertiesParser;
+import org.openrewrite.properties.tree.Properties;
+import org.openrewrite.text.PlainText;
+import org.openrewrite.text.PlainTextParser;
+import org.openrewrite.tree.ParsingExecutionContextView;
+import org.openrewrite.xml.XmlParser;
+import org.openrewrite.xml.tree.Xml;
+import org.openrewrite.yaml.YamlParser;
+import org.openrewrite.yaml.tree.Yaml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceFileCacheTest {
+
+    @Test
+    void unchangedFilesAreLoadedFromTheCache(@TempDir Path temp) throws IOException {
+        Path project = Files.createDirectories(temp.resolve("project"));
+        Path a = Files.write(project.resolve("a.yml"), "a: 1\n".getBytes(StandardCharsets.UTF_8));
+        Path b = Files.write(project.resolve("b.yml"), "b: [1, 2] # two\n".getBytes(StandardCharsets.UTF_8));
+        SourceFileCache cache = new SourceFileCache(temp.resolve("cache"), new SystemStreamLog());
+
+        List<Yaml.Documents> parsed = cache.parse(new YamlParser(), Arrays.asList(a, b), project, new InMemoryExecutionContext());
+        List<Yaml.Documents> cached = cache.parse(new YamlParser(), Arrays.asList(a, b), project, new InMemoryExecutionContext());
+
+        assertThat(cached).hasSize(2);
+        for (int i = 0; i < parsed.size(); i++) {
+            assertThat(cached.get(i).getId()).isEqualTo(parsed.get(i).getId());
+            assertThat(cached.get(i).getSourcePath()).isEqualTo(parsed.get(i).getSourcePath());
+            assertThat(cached.get(i).printAll()).isEqualTo(parsed.get(i).printAll());
+        }
+    }
+
+    @Test
+    void xmlAndPropertiesAreLoadedFromTheCache(@TempDir Path temp) throws IOException {
+        Path project = Files.createDirectories(temp.resolve("project"));
+        Path xml = Files.write(project.resolve("a.xml"), ("<?xml version=\"1.0\"?>\n" +
+                                                          "<root attr=\"1\">\n  <!-- comment -->\n  <child/>\n</root>\n")
+                .getBytes(StandardCharsets.UTF_8));
+        Path properties = Files.write(project.resolve("a.properties"), "a.b=1\n# comment\nc : 2\n".getBytes(StandardCharsets.UTF_8));
+        SourceFileCache cache = new SourceFileCache(temp.resolve("cache"), new SystemStreamLog());
+
+        List<Xml.Document> parsedXml = cache.parse(new XmlParser(), Collections.singletonList(xml), project, new InMemoryExecutionContext());
+        List<Xml.Document> cachedXml = cache.parse(new XmlParser(), Collections.singletonList(xml), project, new InMemoryExecutionContext());
+        List<Properties.File> parsedProperties = cache.parse(new PropertiesParser(), Collections.singletonList(properties), project, new InMemoryExecutionContext());
+        List<Properties.File> cachedProperties = cache.parse(new PropertiesParser(), Collections.singletonList(properties), project, new InMemoryExecutionContext());
+
+        assertThat(cachedXml.get(0).getId()).isEqualTo(parsedXml.get(0).getId());
+        assertThat(cachedXml.get(0).printAll()).isEqualTo(parsedXml.get(0).printAll());
+        assertThat(cachedXml.get(0).getRoot().getChildren()).hasSize(1);
+        assertThat(cachedProperties.get(0).getId()).isEqualTo(parsedProperties.get(0).getId());
+        assertThat(cachedProperties.get(0).printAll()).isEqualTo(parsedProperties.get(0).printAll());
+        assertThat(cachedProperties.get(0).getContent()).hasSize(3);
+    }
+
+    @Test
+    void anotherParserOrCharsetIsAMiss(@TempDir Path temp) throws IOException {
+        Path project = Files.createDirectories(temp.resolve("project"));
+        Path a = Files.write(project.resolve("a.yml"), "a: 1\n".getBytes(StandardCharsets.UTF_8));
+        SourceFileCache cache = new SourceFileCache(temp.resolve("cache"), new SystemStreamLog());
+
+        Yaml.Documents parsed = cache.parse(new YamlParser(), Collections.singletonList(a), project, new InMemoryExecutionContext()).get(0);
+        PlainText asText = cache.parse(new PlainTextParser(), Collections.singletonList(a), project, new InMemoryExecutionContext()).get(0);
+        ExecutionContext latin1 = new InMemoryExecutionContext();
+        ParsingExecutionContextView.view(latin1).setCharset(StandardCharsets.ISO_8859_1);
+        Yaml.Documents inLatin1 = cache.parse(new YamlParser(), Collections.singletonList(a), project, latin1).get(0);
+
+        assertThat(asText.getId()).isNotEqualTo(parsed.getId());
+        assertThat(inLatin1.getId()).isNotEqualTo(parsed.getId());
+        assertThat(cache.parse(new YamlParser(), Collections.singletonList(a), project, new InMemoryExecutionContext()).get(0).getId())
+                .isEqualTo(parsed.getId());
+    }
+
+    @Test
+    void changedFilesAreParsedAgain(@TempDir Path temp) throws IOException {
+        Path project = Files.createDirectories(temp.resolve("project"));
+        Path a = Files.write(project.resolve("a.yml"), "a: 1\n".getBytes(StandardCharsets.UTF_8));
+        Path b = Files.write(project.resolve("b.yml"), "b: 2\n".getBytes(StandardCharsets.UTF_8));
+        SourceFileCache cache = new SourceFileCache(temp.resolve("cache"), new SystemStreamLog());
+
+        List<Yaml.Documents> parsed = cache.parse(new YamlParser(), Arrays.asList(a, b), project, new InMemoryExecutionContext());
+        Files.write(b, "b: 3\n".getBytes(StandardCharsets.UTF_8));
+        List<Yaml.Documents> reparsed = cache.parse(new YamlParser(), Arrays.asList(a, b), project, new InMemoryExecutionContext());
+
+        assertThat(reparsed.get(0).getId()).isEqualTo(parsed.get(0).getId());
+        assertThat(reparsed.get(1).getId()).isNotEqualTo(parsed.get(1).getId());
+        assertThat(reparsed.get(1).printAll()).isEqualTo("b: 3\n");
+    }
+
+    @Test
+    void pruneRemovesTheEntriesUsedLongestAgo(@TempDir Path temp) throws IOException {
+        Path project = Files.createDirectories(temp.resolve("project"));
+        Path a = Files.write(project.resolve("a.yml"), "a: 1\n".getBytes(StandardCharsets.UTF_8));
+        Path b = Files.write(project.resolve("b.yml"), "b: 2\n".getBytes(StandardCharsets.UTF_8));
+        Path cacheDirectory = temp.resolve("cache");
+        SourceFileCache cache = new SourceFileCache(cacheDirectory, new SystemStreamLog());
+        List<Yaml.Documents> parsed = cache.parse(new YamlParser(), Arrays.asList(a, b), project, new InMemoryExecutionContext());
+
+        // every entry was last used long ago, then a is read again
+        long bytes = 0;
+        try (Stream<Path> entries = Files.walk(cacheDirectory)) {
+            for (Path entry : (Iterable<Path>) entries.filter(Files::isRegularFile)::iterator) {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(0));
+                bytes += Files.size(entry);
+            }
+        }
+        cache.parse(new YamlParser(), Collections.singletonList(a), project, new InMemoryExecutionContext());
+
+        assertThat(SourceFileCache.prune(cacheDirectory, bytes)).isZero();
+        assertThat(SourceFileCache.prune(cacheDirectory, bytes - 1)).isEqualTo(1);
+        List<Yaml.Documents> afterPrune = cache.parse(new YamlParser(), Arrays.asList(a, b), project, new InMemoryExecutionContext());
+        assertThat(afterPrune.get(0).getId()).isEqualTo(parsed.get(0).getId());
+        assertThat(afterPrune.get(1).getId()).isNotEqualTo(parsed.get(1).getId());
+    }
+}
@@ -0,0 +1,4 @@
+package sample;
+
+public interface MyInterface {
+}
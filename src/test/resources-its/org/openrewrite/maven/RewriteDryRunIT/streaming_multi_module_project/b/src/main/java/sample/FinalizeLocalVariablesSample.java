@@ -0,0 +1,8 @@
+package sample;
+
+public class FinalizeLocalVariablesSample {
+    int sum(int a, int b) {
+        int sum = a + b;
+        return sum;
+    }
+}